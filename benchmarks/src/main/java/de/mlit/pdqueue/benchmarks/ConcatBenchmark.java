@@ -0,0 +1,53 @@
+package de.mlit.pdqueue.benchmarks;
+
+import de.mlit.pdqueue.PDQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concatenating two queues of the same size without modifying them, so the mutable baselines have to copy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ConcatBenchmark {
+
+    @Benchmark
+    public PDQueue<Integer> pdqueue(Queues q) {
+        return PDQueue.concat(q.pdqueue, q.pdqueueCopy);
+    }
+
+    @Benchmark
+    public ArrayDeque<Integer> arrayDeque(Queues q) {
+        ArrayDeque<Integer> result = new ArrayDeque<>(2 * q.size);
+        result.addAll(q.arrayDeque);
+        result.addAll(q.arrayDeque);
+        return result;
+    }
+
+    @Benchmark
+    public LinkedList<Integer> linkedList(Queues q) {
+        LinkedList<Integer> result = new LinkedList<>(q.linkedList);
+        result.addAll(q.linkedListCopy);
+        return result;
+    }
+
+    @Benchmark
+    public Integer[] copyOnWrite(Queues q) {
+        Integer[] result = Arrays.copyOf(q.copyOnWrite, 2 * q.size);
+        System.arraycopy(q.copyOnWriteCopy, 0, result, q.size, q.size);
+        return result;
+    }
+}
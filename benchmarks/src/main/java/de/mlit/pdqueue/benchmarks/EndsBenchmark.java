@@ -0,0 +1,96 @@
+package de.mlit.pdqueue.benchmarks;
+
+import de.mlit.pdqueue.PDQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding and removing single elements at both ends. The mutable baselines add and remove an element in one
+ * operation, so that their size stays the same.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class EndsBenchmark {
+
+    private static final Integer X = -1;
+
+    @Benchmark
+    public PDQueue<Integer> pdqueueConsL(Queues q) {
+        return q.pdqueue.consL(X);
+    }
+
+    @Benchmark
+    public PDQueue<Integer> pdqueueConsR(Queues q) {
+        return q.pdqueue.consR(X);
+    }
+
+    @Benchmark
+    public PDQueue<Integer> pdqueueTailL(Queues q) {
+        return q.pdqueue.tailL();
+    }
+
+    @Benchmark
+    public PDQueue<Integer> pdqueueTailR(Queues q) {
+        return q.pdqueue.tailR();
+    }
+
+    @Benchmark
+    public Integer arrayDequeAddPollFirst(Queues q) {
+        q.arrayDeque.addFirst(X);
+        return q.arrayDeque.pollFirst();
+    }
+
+    @Benchmark
+    public Integer arrayDequeAddPollLast(Queues q) {
+        q.arrayDeque.addLast(X);
+        return q.arrayDeque.pollLast();
+    }
+
+    @Benchmark
+    public Integer linkedListAddPollFirst(Queues q) {
+        q.linkedList.addFirst(X);
+        return q.linkedList.pollFirst();
+    }
+
+    @Benchmark
+    public Integer linkedListAddPollLast(Queues q) {
+        q.linkedList.addLast(X);
+        return q.linkedList.pollLast();
+    }
+
+    @Benchmark
+    public Integer[] copyOnWriteConsL(Queues q) {
+        Integer[] result = new Integer[q.size + 1];
+        result[0] = X;
+        System.arraycopy(q.copyOnWrite, 0, result, 1, q.size);
+        return result;
+    }
+
+    @Benchmark
+    public Integer[] copyOnWriteConsR(Queues q) {
+        Integer[] result = Arrays.copyOf(q.copyOnWrite, q.size + 1);
+        result[q.size] = X;
+        return result;
+    }
+
+    @Benchmark
+    public Integer[] copyOnWriteTailL(Queues q) {
+        return Arrays.copyOfRange(q.copyOnWrite, 1, q.size);
+    }
+
+    @Benchmark
+    public Integer[] copyOnWriteTailR(Queues q) {
+        return Arrays.copyOf(q.copyOnWrite, q.size - 1);
+    }
+}
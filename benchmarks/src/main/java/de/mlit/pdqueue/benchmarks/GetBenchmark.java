@@ -0,0 +1,46 @@
+package de.mlit.pdqueue.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random access by index. ArrayDeque has no indexed access and is left out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Thread)
+public class GetBenchmark {
+
+    private int cursor;
+
+    private int nextIndex(Queues q) {
+        return q.indices[(cursor++) & 1023];
+    }
+
+    @Benchmark
+    public Integer pdqueue(Queues q) {
+        return q.pdqueue.get(nextIndex(q));
+    }
+
+    @Benchmark
+    public Integer linkedList(Queues q) {
+        return q.linkedList.get(nextIndex(q));
+    }
+
+    @Benchmark
+    public Integer copyOnWrite(Queues q) {
+        return q.copyOnWrite[nextIndex(q)];
+    }
+}
@@ -0,0 +1,59 @@
+package de.mlit.pdqueue.benchmarks;
+
+import de.mlit.pdqueue.PDQueue;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * The queues under test and the baselines, all containing the same elements. The copy-on-write baseline is a plain
+ * array, which is copied on every update.
+ */
+@State(Scope.Benchmark)
+public class Queues {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    public Integer[] elements;
+    public PDQueue<Integer> pdqueue;
+    /** equal to pdqueue, but built differently, so that it shares no nodes with it */
+    public PDQueue<Integer> pdqueueCopy;
+    public ArrayDeque<Integer> arrayDeque;
+    public LinkedList<Integer> linkedList;
+    public LinkedList<Integer> linkedListCopy;
+    public Integer[] copyOnWrite;
+    public Integer[] copyOnWriteCopy;
+    public int[] indices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        elements = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = i;
+        }
+        PDQueue<Integer> q = PDQueue.empty();
+        for (Integer e : elements) {
+            q = q.consR(e);
+        }
+        pdqueue = q;
+        pdqueueCopy = PDQueue.fromArray(elements, 0, size);
+        arrayDeque = new ArrayDeque<>(Arrays.asList(elements));
+        linkedList = new LinkedList<>(Arrays.asList(elements));
+        linkedListCopy = new LinkedList<>(Arrays.asList(elements));
+        copyOnWrite = elements.clone();
+        copyOnWriteCopy = elements.clone();
+        Random random = new Random(42);
+        indices = new int[1024];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(size);
+        }
+    }
+}
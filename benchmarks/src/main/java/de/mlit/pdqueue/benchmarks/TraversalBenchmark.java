@@ -0,0 +1,147 @@
+package de.mlit.pdqueue.benchmarks;
+
+import de.mlit.pdqueue.PDQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations visiting all elements. equals compares against an equal queue, which shares no nodes with the first
+ * one. Nodes cache their hash, so hashCode is measured on a queue without cached hashes, on a queue derived from a
+ * hashed one and on an already hashed queue. ArrayDeque does not define equals and hashCode and is left out there.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class TraversalBenchmark {
+
+    /**
+     * A fresh copy of pdqueue for every invocation, so no node has a cached hash
+     */
+    @State(Scope.Thread)
+    public static class UncachedQueue {
+        public PDQueue<Integer> queue;
+
+        @Setup(Level.Invocation)
+        public void setUp(Queues q) {
+            queue = PDQueue.fromArray(q.elements, 0, q.size);
+        }
+    }
+
+    @Benchmark
+    public void pdqueueForEachLtoR(Queues q, Blackhole bh) {
+        q.pdqueue.forEachLtoR(bh::consume);
+    }
+
+    @Benchmark
+    public void pdqueueIterator(Queues q, Blackhole bh) {
+        for (Integer e : q.pdqueue) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public Object[] pdqueueToArray(Queues q) {
+        return q.pdqueue.toArray(new Integer[q.size]);
+    }
+
+    @Benchmark
+    public boolean pdqueueEquals(Queues q) {
+        return q.pdqueue.equals(q.pdqueueCopy);
+    }
+
+    /**
+     * Hash code of a queue derived from pdqueue, whose new nodes along the left edge have no cached hash yet, while
+     * all other nodes are shared with pdqueue and have their hash cached
+     */
+    @Benchmark
+    public int pdqueueHashCodeDerived(Queues q) {
+        return q.pdqueue.consL(q.elements[0]).tailL().hashCode();
+    }
+
+    /**
+     * Hash code of a queue none of whose nodes has a cached hash
+     */
+    @Benchmark
+    public int pdqueueHashCodeUncached(UncachedQueue u) {
+        return u.queue.hashCode();
+    }
+
+    /**
+     * Hash code of pdqueue, which is cached after the first invocation
+     */
+    @Benchmark
+    public int pdqueueHashCodeCached(Queues q) {
+        return q.pdqueue.hashCode();
+    }
+
+    @Benchmark
+    public void arrayDequeForEach(Queues q, Blackhole bh) {
+        for (Integer e : q.arrayDeque) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public Object[] arrayDequeToArray(Queues q) {
+        return q.arrayDeque.toArray(new Integer[q.size]);
+    }
+
+    @Benchmark
+    public void linkedListForEach(Queues q, Blackhole bh) {
+        for (Integer e : q.linkedList) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public Object[] linkedListToArray(Queues q) {
+        return q.linkedList.toArray(new Integer[q.size]);
+    }
+
+    @Benchmark
+    public boolean linkedListEquals(Queues q) {
+        return q.linkedList.equals(q.linkedListCopy);
+    }
+
+    @Benchmark
+    public int linkedListHashCode(Queues q) {
+        return q.linkedList.hashCode();
+    }
+
+    @Benchmark
+    public void copyOnWriteForEach(Queues q, Blackhole bh) {
+        for (Integer e : q.copyOnWrite) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    public Object[] copyOnWriteToArray(Queues q) {
+        return q.copyOnWrite.clone();
+    }
+
+    @Benchmark
+    public boolean copyOnWriteEquals(Queues q) {
+        return Arrays.equals(q.copyOnWrite, q.copyOnWriteCopy);
+    }
+
+    @Benchmark
+    public int copyOnWriteHashCode(Queues q) {
+        return Arrays.hashCode(q.copyOnWrite);
+    }
+}
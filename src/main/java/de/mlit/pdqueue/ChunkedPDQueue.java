@@ -0,0 +1,391 @@
+package de.mlit.pdqueue;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A persistent double ended queue which stores its elements in immutable arrays (chunks) of up to CHUNK_SIZE
+ * elements. The chunks are the elements of a PDQueue weighted by their size, so the nested levels index chunks
+ * instead of single elements. Adding or removing an element at an end copies the chunk at that end. This takes
+ * much less memory per element than a PDQueue, and traversals copy and visit whole arrays.
+ * @param <E> the type of the elements in the queue
+ */
+public final class ChunkedPDQueue<E> implements Iterable<E> {
+
+    /**
+     * The maximal number of elements in a chunk
+     */
+    public static final int CHUNK_SIZE = 32;
+
+    @SuppressWarnings("unchecked")
+    private static final ChunkedPDQueue EMPTY = new ChunkedPDQueue(PDQueueFactory.Digits.EMPTY);
+
+    private final PDQueue<Chunk<E>> chunks;
+
+    private ChunkedPDQueue(PDQueue<Chunk<E>> chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * Returns an empty queue.
+     * @param <E> the type of the elements in the queue
+     * @return an empty ChunkedPDQueue
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ChunkedPDQueue<E> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a queue containing the given elements from left to right
+     * @param elements the elements to be contained in the queue
+     * @param <E> the type of the elements in the queue
+     * @return the queue containing the elements
+     */
+    @SafeVarargs
+    public static <E> ChunkedPDQueue<E> of(E... elements) {
+        return fromIterable(Arrays.asList(elements));
+    }
+
+    /**
+     * Returns a queue containing the elements of an iterable in iteration order, packed into full chunks. The chunks
+     * are collected first and the queue of chunks is built bottom up like PDQueue.fromArray builds it, so each node
+     * is allocated once.
+     * @param elements the elements to be contained in the queue
+     * @param <E> the type of the elements in the queue
+     * @return the queue containing the elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> ChunkedPDQueue<E> fromIterable(Iterable<? extends E> elements) {
+        Object[] chunks = new Object[elements instanceof Collection
+                ? (((Collection<?>) elements).size() + CHUNK_SIZE - 1) / CHUNK_SIZE : 16];
+        int count = 0;
+        Object[] buffer = new Object[CHUNK_SIZE];
+        int n = 0;
+        for (E e : elements) {
+            buffer[n++] = e;
+            if (n == CHUNK_SIZE) {
+                if (count == chunks.length) {
+                    chunks = Arrays.copyOf(chunks, count * 2 + 1);
+                }
+                chunks[count++] = new Chunk<>(buffer.clone());
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            if (count == chunks.length) {
+                chunks = Arrays.copyOf(chunks, count + 1);
+            }
+            chunks[count++] = new Chunk<>(Arrays.copyOf(buffer, n));
+        }
+        return new ChunkedPDQueue<>(PDQueue.build(PDQueueFactory.Digits.EMPTY, chunks, 0, count, chunks));
+    }
+
+    /**
+     * Returns the concatenation of two queues. The chunks at the boundary are merged if they fit into one chunk.
+     * @param q1 the left queue
+     * @param q2 the right queue
+     * @param <E> the type of the elements in the queues
+     * @return the concatenation of q1 and q2
+     */
+    public static <E> ChunkedPDQueue<E> concat(ChunkedPDQueue<E> q1, ChunkedPDQueue<E> q2) {
+        PDQueue<Chunk<E>> c1 = q1.chunks;
+        PDQueue<Chunk<E>> c2 = q2.chunks;
+        if (c1.isEmpty()) {
+            return q2;
+        } else if (c2.isEmpty()) {
+            return q1;
+        }
+        Chunk<E> last = c1.headR();
+        Chunk<E> first = c2.headL();
+        if (last.size() + first.size() <= CHUNK_SIZE) {
+            Object[] merged = Arrays.copyOf(last.elements, last.size() + first.size());
+            System.arraycopy(first.elements, 0, merged, last.size(), first.size());
+            c1 = c1.replaceR(new Chunk<>(merged));
+            c2 = c2.tailL();
+        }
+        return new ChunkedPDQueue<>(c1.internalConcatenate(c1, c2));
+    }
+
+    /**
+     * Gives the size of the queue, which is the number of elements contained in it
+     * @return the size
+     */
+    public int size() {
+        return chunks.size();
+    }
+
+    /**
+     * Checks if the queue is empty
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return chunks.isEmpty();
+    }
+
+    /**
+     * Returns the n-th element (zero based) of the queue. The 0-th element is the leftmost element, the
+     * (size()-1)-th element the right most.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the n-th element
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        // the elements of level 0 are chunks weighted by their size
+        PDQueue.Leaf leaf = PDQueue.leafAt(chunks, n, true);
+        return (E) ((Chunk<?>) leaf.element).elements[leaf.offset];
+    }
+
+    /**
+     * Gives the left most element
+     * @throws NoSuchElementException if the queue is empty
+     * @return the left most element
+     */
+    @SuppressWarnings("unchecked")
+    public E headL() {
+        return (E) chunks.headL().elements[0];
+    }
+
+    /**
+     * Gives the right most element
+     * @throws NoSuchElementException if the queue is empty
+     * @return the right most element
+     */
+    @SuppressWarnings("unchecked")
+    public E headR() {
+        Object[] elements = chunks.headR().elements;
+        return (E) elements[elements.length - 1];
+    }
+
+    /**
+     * Returns a queue with e added to the left
+     * @param e the element to add
+     * @return the new queue
+     */
+    public ChunkedPDQueue<E> consL(E e) {
+        if (!chunks.isEmpty()) {
+            Object[] first = chunks.headL().elements;
+            if (first.length < CHUNK_SIZE) {
+                Object[] elements = new Object[first.length + 1];
+                elements[0] = e;
+                System.arraycopy(first, 0, elements, 1, first.length);
+                return new ChunkedPDQueue<>(chunks.replaceL(new Chunk<>(elements)));
+            }
+        }
+        return new ChunkedPDQueue<>(chunks.consL(new Chunk<>(new Object[] {e})));
+    }
+
+    /**
+     * Returns a queue with e added to the right
+     * @param e the element to add
+     * @return the new queue
+     */
+    public ChunkedPDQueue<E> consR(E e) {
+        if (!chunks.isEmpty()) {
+            Object[] last = chunks.headR().elements;
+            if (last.length < CHUNK_SIZE) {
+                Object[] elements = Arrays.copyOf(last, last.length + 1);
+                elements[last.length] = e;
+                return new ChunkedPDQueue<>(chunks.replaceR(new Chunk<>(elements)));
+            }
+        }
+        return new ChunkedPDQueue<>(chunks.consR(new Chunk<>(new Object[] {e})));
+    }
+
+    /**
+     * Returns the queue without the left most element
+     * @throws NoSuchElementException if the queue is empty
+     * @return the new queue
+     */
+    public ChunkedPDQueue<E> tailL() {
+        Object[] first = chunks.headL().elements;
+        if (first.length == 1) {
+            return new ChunkedPDQueue<>(chunks.tailL());
+        }
+        return new ChunkedPDQueue<>(chunks.replaceL(new Chunk<>(Arrays.copyOfRange(first, 1, first.length))));
+    }
+
+    /**
+     * Returns the queue without the right most element
+     * @throws NoSuchElementException if the queue is empty
+     * @return the new queue
+     */
+    public ChunkedPDQueue<E> tailR() {
+        Object[] last = chunks.headR().elements;
+        if (last.length == 1) {
+            return new ChunkedPDQueue<>(chunks.tailR());
+        }
+        return new ChunkedPDQueue<>(chunks.replaceR(new Chunk<>(Arrays.copyOf(last, last.length - 1))));
+    }
+
+    /**
+     * Calls accept on the consumer for each element in the queue from left to right
+     * @param consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachLtoR(Consumer<? super E> consumer) {
+        chunks.forEachLtoR(chunk -> {
+            for (Object e : chunk.elements) {
+                consumer.accept((E) e);
+            }
+        });
+    }
+
+    /**
+     * Calls accept on the consumer for each element in the queue from right to left
+     * @param consumer
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachRtoL(Consumer<? super E> consumer) {
+        chunks.forEachRtoL(chunk -> {
+            Object[] elements = chunk.elements;
+            for (int i = elements.length - 1; i >= 0; i--) {
+                consumer.accept((E) elements[i]);
+            }
+        });
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        forEachLtoR(action);
+    }
+
+    /**
+     * Gives the elements in an array from left to right
+     * @return the array
+     */
+    public Object[] toArray() {
+        Object[] result = new Object[size()];
+        copyTo(result);
+        return result;
+    }
+
+    /**
+     * Gives the elements in an array from left to right
+     * @param a an array of the right runtime type, which is used if it is big enough
+     * @param <A> the type of the array elements
+     * @return the array
+     */
+    @SuppressWarnings("unchecked")
+    public <A> A[] toArray(A[] a) {
+        int size = size();
+        A[] result = a.length >= size ? a : (A[]) Array.newInstance(a.getClass().getComponentType(), size);
+        copyTo(result);
+        if (result.length > size) {
+            result[size] = null;
+        }
+        return result;
+    }
+
+    private void copyTo(Object[] target) {
+        int[] offset = new int[1];
+        chunks.forEachLtoR(chunk -> {
+            System.arraycopy(chunk.elements, 0, target, offset[0], chunk.elements.length);
+            offset[0] += chunk.elements.length;
+        });
+    }
+
+    /**
+     * Gives an iterator over the elements of the queue from left to right
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        PDQueueIterator<Chunk<E>> it = new PDQueueIterator<>(chunks, false, true);
+        return new Iterator<E>() {
+            Object[] chunk = new Object[0];
+            int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < chunk.length || it.hasNext();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (i == chunk.length) {
+                    chunk = it.next().elements;
+                    i = 0;
+                }
+                return (E) chunk[i++];
+            }
+        };
+    }
+
+    /**
+     * Gives a sequential stream of the elements of the queue from left to right
+     * @return the stream
+     */
+    @SuppressWarnings("unchecked")
+    public Stream<E> stream() {
+        return StreamSupport.stream(new PDQueueSpliterator<>(chunks, true), false)
+                .flatMap(chunk -> Arrays.stream((E[]) chunk.elements));
+    }
+
+    @Override
+    public int hashCode() {
+        return chunks.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ChunkedPDQueue)) {
+            return false;
+        } else if (obj == this) {
+            return true;
+        }
+        ChunkedPDQueue<?> other = (ChunkedPDQueue<?>) obj;
+        if (size() != other.size()) {
+            return false;
+        }
+        Iterator<?> it1 = iterator();
+        Iterator<?> it2 = other.iterator();
+        while (it1.hasNext()) {
+            Object o1 = it1.next();
+            Object o2 = it2.next();
+            if (!(o1 == null ? o2 == null : o1.equals(o2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An immutable array of elements, weighted by its length in the queue of chunks
+     */
+    static final class Chunk<E> implements PDQueueFactory.Sized {
+        final Object[] elements;
+
+        Chunk(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+
+        /**
+         * Same as the hash code of a PDQueue with the same elements, as required by PDQueueFactory.Digits
+         */
+        @Override
+        public int hashCode() {
+            int result = 47;
+            for (Object o : elements) {
+                result = result * 97 + (o == null ? 0 : o.hashCode());
+            }
+            return result;
+        }
+    }
+}
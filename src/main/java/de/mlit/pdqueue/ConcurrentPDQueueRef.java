@@ -0,0 +1,463 @@
+package de.mlit.pdqueue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread safe, unbounded, mutable deque holding the current version of a PDQueue in an AtomicReference. Every
+ * update computes a new version and installs it by compare and set, retrying with backoff under contention, so the
+ * non blocking operations are lock free. snapshot() gives the current version in constant time; it is a consistent
+ * persistent queue which is not affected by later updates. Iterators and bulk reads work on a snapshot.
+ * <p>
+ * Threads waiting in take and the timed polls are parked and woken up when elements are added. Null elements are not
+ * permitted.
+ * @param <E> the type of the elements
+ */
+public class ConcurrentPDQueueRef<E> extends AbstractQueue<E> implements BlockingDeque<E> {
+
+    private final AtomicReference<PDQueue<E>> ref;
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates an empty deque
+     */
+    public ConcurrentPDQueueRef() {
+        this(PDQueue.empty());
+    }
+
+    /**
+     * Creates a deque starting with the elements of a queue
+     * @param initial the initial elements
+     */
+    public ConcurrentPDQueueRef(PDQueue<E> initial) {
+        this.ref = new AtomicReference<>(initial);
+    }
+
+    /**
+     * Gives the current version of the deque. This takes constant time.
+     * @return the queue of the current elements
+     */
+    public PDQueue<E> snapshot() {
+        return ref.get();
+    }
+
+    /**
+     * Atomically replaces the current version by the result of f applied to it. f may be called several times under
+     * contention and should be free of side effects.
+     * @param f computes the new version from the current one
+     * @return the new version
+     */
+    public PDQueue<E> updateAndGet(UnaryOperator<PDQueue<E>> f) {
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            PDQueue<E> updated = f.apply(q);
+            if (ref.compareAndSet(q, updated)) {
+                if (updated.size() > q.size()) {
+                    signalWaiters();
+                }
+                return updated;
+            }
+            backoff(failures);
+        }
+    }
+
+    /**
+     * Waits a little after a failed compare and set, the longer the more often it failed
+     */
+    private static void backoff(int failures) {
+        if (failures > 16) {
+            LockSupport.parkNanos(1L << Math.min(failures - 16, 16));
+        } else if (failures > 4) {
+            Thread.yield();
+        }
+    }
+
+    private void signalWaiters() {
+        if (!waiters.isEmpty()) {
+            for (Thread t : waiters) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    private static void checkNotNull(Object e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        checkNotNull(e);
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            if (ref.compareAndSet(q, q.consL(e))) {
+                signalWaiters();
+                return true;
+            }
+            backoff(failures);
+        }
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        checkNotNull(e);
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            if (ref.compareAndSet(q, q.consR(e))) {
+                signalWaiters();
+                return true;
+            }
+            backoff(failures);
+        }
+    }
+
+    @Override
+    public E pollFirst() {
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            if (q.isEmpty()) {
+                return null;
+            } else if (ref.compareAndSet(q, q.tailL())) {
+                return q.headL();
+            }
+            backoff(failures);
+        }
+    }
+
+    @Override
+    public E pollLast() {
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            if (q.isEmpty()) {
+                return null;
+            } else if (ref.compareAndSet(q, q.tailR())) {
+                return q.headR();
+            }
+            backoff(failures);
+        }
+    }
+
+    /**
+     * Polls an element, waiting until one is available, the time is up or the thread is interrupted
+     */
+    private E await(boolean first, boolean timed, long nanos) throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        Thread current = Thread.currentThread();
+        while (true) {
+            E e = first ? pollFirst() : pollLast();
+            if (e != null) {
+                return e;
+            } else if (Thread.interrupted()) {
+                throw new InterruptedException();
+            } else if (timed) {
+                nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    return null;
+                }
+            }
+            waiters.add(current);
+            try {
+                // adding elements wakes up the waiters registered before, so check again after registering
+                if (ref.get().isEmpty()) {
+                    if (timed) {
+                        LockSupport.parkNanos(this, nanos);
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+            } finally {
+                waiters.remove(current);
+            }
+        }
+    }
+
+    @Override
+    public void addFirst(E e) {
+        offerFirst(e);
+    }
+
+    @Override
+    public void addLast(E e) {
+        offerLast(e);
+    }
+
+    @Override
+    public void putFirst(E e) {
+        offerFirst(e);
+    }
+
+    @Override
+    public void putLast(E e) {
+        offerLast(e);
+    }
+
+    @Override
+    public boolean offerFirst(E e, long timeout, TimeUnit unit) {
+        return offerFirst(e);
+    }
+
+    @Override
+    public boolean offerLast(E e, long timeout, TimeUnit unit) {
+        return offerLast(e);
+    }
+
+    @Override
+    public E takeFirst() throws InterruptedException {
+        return await(true, false, 0L);
+    }
+
+    @Override
+    public E takeLast() throws InterruptedException {
+        return await(false, false, 0L);
+    }
+
+    @Override
+    public E pollFirst(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(true, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public E pollLast(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(false, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public E removeFirst() {
+        E e = pollFirst();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    @Override
+    public E removeLast() {
+        E e = pollLast();
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    @Override
+    public E getFirst() {
+        PDQueue<E> q = ref.get();
+        if (q.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return q.headL();
+    }
+
+    @Override
+    public E getLast() {
+        PDQueue<E> q = ref.get();
+        if (q.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return q.headR();
+    }
+
+    @Override
+    public E peekFirst() {
+        PDQueue<E> q = ref.get();
+        return q.isEmpty() ? null : q.headL();
+    }
+
+    @Override
+    public E peekLast() {
+        PDQueue<E> q = ref.get();
+        return q.isEmpty() ? null : q.headR();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            int i = 0;
+            Iterator<E> it = q.iterator();
+            while (it.hasNext() && !it.next().equals(o)) {
+                i++;
+            }
+            if (i == q.size()) {
+                return false;
+            } else if (ref.compareAndSet(q, q.removeAt(i))) {
+                return true;
+            }
+            backoff(failures);
+        }
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            int i = q.size() - 1;
+            Iterator<E> it = q.descendingIterator();
+            while (it.hasNext() && !it.next().equals(o)) {
+                i--;
+            }
+            if (i < 0) {
+                return false;
+            } else if (ref.compareAndSet(q, q.removeAt(i))) {
+                return true;
+            }
+            backoff(failures);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public void put(E e) {
+        offerLast(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offerLast(e);
+    }
+
+    @Override
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return takeFirst();
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return pollFirst(timeout, unit);
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    /**
+     * Adds all elements of the collection to the right in a single update
+     * @param c the elements to be added
+     * @return true if c is not empty
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        PDQueue<E> batch = PDQueue.fromIterable(c);
+        batch.forEachLtoR(ConcurrentPDQueueRef::checkNotNull);
+        if (batch.isEmpty()) {
+            return false;
+        }
+        updateAndGet(q -> PDQueue.concat(q, batch));
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        ref.set(PDQueue.empty());
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        for (int failures = 0; ; failures++) {
+            PDQueue<E> q = ref.get();
+            int n = Math.min(maxElements, q.size());
+            if (n <= 0) {
+                return 0;
+            }
+            PDQueue.Split<E> split = q.splitAt(n);
+            if (ref.compareAndSet(q, split.right())) {
+                split.left().forEachLtoR(c::add);
+                return n;
+            }
+            backoff(failures);
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        for (E e : ref.get()) {
+            if (e.equals(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return ref.get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ref.get().isEmpty();
+    }
+
+    /**
+     * Gives an iterator over a snapshot of the elements from left to right. It does not support remove.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return ref.get().iterator();
+    }
+
+    /**
+     * Gives an iterator over a snapshot of the elements from right to left. It does not support remove.
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> descendingIterator() {
+        return ref.get().descendingIterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return ref.get().stream().toArray();
+    }
+}
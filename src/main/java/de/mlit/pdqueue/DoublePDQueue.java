@@ -0,0 +1,694 @@
+package de.mlit.pdqueue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a persistent double ended queue of double values. It has the same structure as {@link PDQueue},
+ * but the digits of the top level hold the values in double fields, so the values are never boxed. The nested levels
+ * are ordinary queues of these digits.
+ */
+public abstract class DoublePDQueue extends PrimitivePDQueue<DoublePDQueue> {
+
+    /**
+     * Returns an empty queue.
+     * @return an empty DoublePDQueue
+     */
+    public static DoublePDQueue empty() {
+        return Q0.EMPTY;
+    }
+
+    /**
+     * Returns a singleton queue with the given value
+     * @param e the value to be contained in the queue
+     * @return the queue containing just the one value e
+     */
+    public static DoublePDQueue singleton(double e) {
+        return new Q1(e);
+    }
+
+    /**
+     * Returns a queue with the given values from left to right
+     * @param values the values to be contained in the queue
+     * @return the queue containing the values
+     */
+    public static DoublePDQueue of(double... values) {
+        return fromArray(values, 0, values.length);
+    }
+
+    /**
+     * Returns a queue containing the values of the array from index from (inclusive) to index to (exclusive). The
+     * queue is built bottom up in linear time like {@link PDQueue#fromArray(Object[], int, int)}.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;values.length or from&gt;to
+     * @param values the array containing the values
+     * @param from the index of the first value
+     * @param to the index after the last value
+     * @return the queue containing the values
+     */
+    public static DoublePDQueue fromArray(double[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        return Q0.EMPTY.build(values, from, to);
+    }
+
+    /**
+     * Returns the concatenation of two queues
+     * @param q1 the left queue
+     * @param q2 the right queue
+     * @return the concatenation of q1 and q2
+     */
+    public static DoublePDQueue concat(DoublePDQueue q1, DoublePDQueue q2) {
+        return concatenate(q1, q2);
+    }
+
+    DoublePDQueue() {
+    }
+
+    /**
+     * Returns the n-th value (zero based) of the queue. The 0-th value is the leftmost value, the (size()-1)-th value
+     * the right most.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the n-th value
+     */
+    public double getDouble(int n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return Double.longBitsToDouble(bitsAt(n));
+    }
+
+    /**
+     * Gives the left most value
+     * @throws NoSuchElementException if the queue is empty
+     * @return the left most value
+     */
+    public double headLDouble() {
+        return Double.longBitsToDouble(headLBits());
+    }
+
+    /**
+     * Gives the right most value
+     * @throws NoSuchElementException if the queue is empty
+     * @return the right most value
+     */
+    public double headRDouble() {
+        return Double.longBitsToDouble(headRBits());
+    }
+
+    /**
+     * Gives a queue with value e added to the left
+     * @param e the value to be added
+     * @return the queue with value e added to the left
+     */
+    public abstract DoublePDQueue consL(double e);
+
+    /**
+     * Gives a queue with value e added to the right
+     * @param e the value to be added
+     * @return the queue with value e added to the right
+     */
+    public abstract DoublePDQueue consR(double e);
+
+    /**
+     * Gives the queue with the leftmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value removed
+     */
+    @Override
+    public abstract DoublePDQueue tailL();
+
+    /**
+     * Gives the queue with the rightmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value removed
+     */
+    @Override
+    public abstract DoublePDQueue tailR();
+
+    /**
+     * Gives a queue with the leftmost value replaced by e
+     * @param e the value to replace the leftmost value with
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value replaced by e
+     */
+    public abstract DoublePDQueue replaceL(double e);
+
+    /**
+     * Gives a queue with the rightmost value replaced by e
+     * @param e the value to replace the rightmost value with
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value replaced by e
+     */
+    public abstract DoublePDQueue replaceR(double e);
+
+    /**
+     * Calls accept on the consumer for each value in the queue from left to right
+     * @param consumer
+     */
+    public void forEachLtoR(DoubleConsumer consumer) {
+        iterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * Calls accept on the consumer for each value in the queue from right to left
+     * @param consumer
+     */
+    public void forEachRtoL(DoubleConsumer consumer) {
+        descendingIterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * Returns the values of the queue as array
+     * @return an array containing all values of the queue
+     */
+    public double[] toArray() {
+        double[] result = new double[size()];
+        PrimitiveIterator.OfDouble it = iterator();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = it.nextDouble();
+        }
+        return result;
+    }
+
+    /**
+     * Gives an iterator over the values of the queue from left to right
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfDouble iterator() {
+        return new Itr(this, false);
+    }
+
+    /**
+     * Gives an iterator over the values of the queue from right to left
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfDouble descendingIterator() {
+        return new Itr(this, true);
+    }
+
+    /**
+     * Gives a spliterator over the values of the queue from left to right
+     * @return the spliterator
+     */
+    public Spliterator.OfDouble spliterator() {
+        return new Spl(this);
+    }
+
+    /**
+     * Gives a sequential stream of the values of the queue from left to right
+     * @return the stream
+     */
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(spliterator(), false);
+    }
+
+    /**
+     * Gives a parallel stream of the values of the queue from left to right
+     * @return the stream
+     */
+    public DoubleStream parallelStream() {
+        return StreamSupport.doubleStream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DoublePDQueue && equalValues(this, (DoublePDQueue) obj);
+    }
+
+    @Override
+    int hashOf(long bits) {
+        return Double.hashCode(Double.longBitsToDouble(bits));
+    }
+
+    @Override
+    boolean sameValue(long bits1, long bits2) {
+        // like Double.equals, which identifies all NaN values
+        return Double.doubleToLongBits(Double.longBitsToDouble(bits1))
+                == Double.doubleToLongBits(Double.longBitsToDouble(bits2));
+    }
+
+    @Override
+    DoublePDQueue consLBits(long e) {
+        return consL(Double.longBitsToDouble(e));
+    }
+
+    @Override
+    DoublePDQueue consRBits(long e) {
+        return consR(Double.longBitsToDouble(e));
+    }
+
+    @Override
+    DoublePDQueue emptyQ() {
+        return Q0.EMPTY;
+    }
+
+    @Override
+    DoublePDQueue pair(long e0, long e1) {
+        return new Q2(Double.longBitsToDouble(e0), Double.longBitsToDouble(e1));
+    }
+
+    @Override
+    DoublePDQueue digit(Object values, int from, int count) {
+        double[] a = (double[]) values;
+        switch (count) {
+            case 0:
+                return Q0.EMPTY;
+            case 1:
+                return new Q1(a[from]);
+            case 2:
+                return new Q2(a[from], a[from + 1]);
+            case 3:
+                return new Q3(a[from], a[from + 1], a[from + 2]);
+            default:
+                return new Q4(a[from], a[from + 1], a[from + 2], a[from + 3]);
+        }
+    }
+
+    @Override
+    DoublePDQueue complQ(DoublePDQueue left, PDQueue<DoublePDQueue> middle, DoublePDQueue right) {
+        return new Qn(left, middle, right);
+    }
+
+    @SuppressWarnings("unchecked")
+    static PDQueue<DoublePDQueue> emptyMiddle() {
+        return PDQueueFactory.Digits.EMPTY;
+    }
+
+    static final class Q0 extends DoublePDQueue {
+
+        static final Q0 EMPTY = new Q0();
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        int kind() {
+            return 0;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public DoublePDQueue consL(double e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public DoublePDQueue consR(double e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public DoublePDQueue tailL() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public DoublePDQueue tailR() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public DoublePDQueue replaceL(double e) {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public DoublePDQueue replaceR(double e) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    static final class Q1 extends DoublePDQueue {
+        private final double e0;
+
+        Q1(double e0) {
+            this.e0 = e0;
+        }
+
+        @Override
+        int kind() {
+            return 1;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            return Double.doubleToRawLongBits(e0);
+        }
+
+        @Override
+        public DoublePDQueue consL(double e) {
+            return new Q2(e, e0);
+        }
+
+        @Override
+        public DoublePDQueue consR(double e) {
+            return new Q2(e0, e);
+        }
+
+        @Override
+        public DoublePDQueue tailL() {
+            return Q0.EMPTY;
+        }
+
+        @Override
+        public DoublePDQueue tailR() {
+            return Q0.EMPTY;
+        }
+
+        @Override
+        public DoublePDQueue replaceL(double e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public DoublePDQueue replaceR(double e) {
+            return new Q1(e);
+        }
+    }
+
+    static final class Q2 extends DoublePDQueue {
+        private final double e0, e1;
+
+        Q2(double e0, double e1) {
+            this.e0 = e0;
+            this.e1 = e1;
+        }
+
+        @Override
+        int kind() {
+            return 2;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            return Double.doubleToRawLongBits(i == 0 ? e0 : e1);
+        }
+
+        @Override
+        public DoublePDQueue consL(double e) {
+            return new Q3(e, e0, e1);
+        }
+
+        @Override
+        public DoublePDQueue consR(double e) {
+            return new Q3(e0, e1, e);
+        }
+
+        @Override
+        public DoublePDQueue tailL() {
+            return new Q1(e1);
+        }
+
+        @Override
+        public DoublePDQueue tailR() {
+            return new Q1(e0);
+        }
+
+        @Override
+        public DoublePDQueue replaceL(double e) {
+            return new Q2(e, e1);
+        }
+
+        @Override
+        public DoublePDQueue replaceR(double e) {
+            return new Q2(e0, e);
+        }
+    }
+
+    static final class Q3 extends DoublePDQueue {
+        private final double e0, e1, e2;
+
+        Q3(double e0, double e1, double e2) {
+            this.e0 = e0;
+            this.e1 = e1;
+            this.e2 = e2;
+        }
+
+        @Override
+        int kind() {
+            return 3;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            switch (i) {
+                case 0:
+                    return Double.doubleToRawLongBits(e0);
+                case 1:
+                    return Double.doubleToRawLongBits(e1);
+                default:
+                    return Double.doubleToRawLongBits(e2);
+            }
+        }
+
+        @Override
+        public DoublePDQueue consL(double e) {
+            return new Q4(e, e0, e1, e2);
+        }
+
+        @Override
+        public DoublePDQueue consR(double e) {
+            return new Q4(e0, e1, e2, e);
+        }
+
+        @Override
+        public DoublePDQueue tailL() {
+            return new Q2(e1, e2);
+        }
+
+        @Override
+        public DoublePDQueue tailR() {
+            return new Q2(e0, e1);
+        }
+
+        @Override
+        public DoublePDQueue replaceL(double e) {
+            return new Q3(e, e1, e2);
+        }
+
+        @Override
+        public DoublePDQueue replaceR(double e) {
+            return new Q3(e0, e1, e);
+        }
+    }
+
+    static final class Q4 extends DoublePDQueue {
+        private final double e0, e1, e2, e3;
+
+        Q4(double e0, double e1, double e2, double e3) {
+            this.e0 = e0;
+            this.e1 = e1;
+            this.e2 = e2;
+            this.e3 = e3;
+        }
+
+        @Override
+        int kind() {
+            return 4;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            switch (i) {
+                case 0:
+                    return Double.doubleToRawLongBits(e0);
+                case 1:
+                    return Double.doubleToRawLongBits(e1);
+                case 2:
+                    return Double.doubleToRawLongBits(e2);
+                default:
+                    return Double.doubleToRawLongBits(e3);
+            }
+        }
+
+        @Override
+        public DoublePDQueue consL(double e) {
+            return new Qn(new Q2(e, e0), new Q3(e1, e2, e3));
+        }
+
+        @Override
+        public DoublePDQueue consR(double e) {
+            return new Qn(new Q3(e0, e1, e2), new Q2(e3, e));
+        }
+
+        @Override
+        public DoublePDQueue tailL() {
+            return new Q3(e1, e2, e3);
+        }
+
+        @Override
+        public DoublePDQueue tailR() {
+            return new Q3(e0, e1, e2);
+        }
+
+        @Override
+        public DoublePDQueue replaceL(double e) {
+            return new Q4(e, e1, e2, e3);
+        }
+
+        @Override
+        public DoublePDQueue replaceR(double e) {
+            return new Q4(e0, e1, e2, e);
+        }
+    }
+
+    static final class Qn extends DoublePDQueue {
+        private final int size;
+        int hash;
+        final DoublePDQueue left;
+        final PDQueue<DoublePDQueue> middle;
+        final DoublePDQueue right;
+
+        Qn(DoublePDQueue left, PDQueue<DoublePDQueue> middle, DoublePDQueue right) {
+            this.size = left.size() + middle.size() + right.size();
+            this.left = left;
+            this.middle = middle;
+            this.right = right;
+        }
+
+        Qn(DoublePDQueue left, DoublePDQueue right) {
+            this(left, emptyMiddle(), right);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        int kind() {
+            return 5;
+        }
+
+        @Override
+        DoublePDQueue left() {
+            return left;
+        }
+
+        @Override
+        PDQueue<DoublePDQueue> middle() {
+            return middle;
+        }
+
+        @Override
+        DoublePDQueue right() {
+            return right;
+        }
+
+        @Override
+        long bitsAt(int n) {
+            return deepBitsAt(n);
+        }
+
+        @Override
+        public DoublePDQueue consL(double e) {
+            return deepConsL(Double.doubleToRawLongBits(e));
+        }
+
+        @Override
+        public DoublePDQueue consR(double e) {
+            return deepConsR(Double.doubleToRawLongBits(e));
+        }
+
+        @Override
+        public DoublePDQueue tailL() {
+            return deepTailL();
+        }
+
+        @Override
+        public DoublePDQueue tailR() {
+            return deepTailR();
+        }
+
+        @Override
+        public DoublePDQueue replaceL(double e) {
+            return new Qn(left.replaceL(e), middle, right);
+        }
+
+        @Override
+        public DoublePDQueue replaceR(double e) {
+            return new Qn(left, middle, right.replaceR(e));
+        }
+
+        @Override
+        DoublePDQueue appendLTo(DoublePDQueue q) {
+            return concat(this, q);
+        }
+
+        @Override
+        DoublePDQueue appendRTo(DoublePDQueue q) {
+            return concat(q, this);
+        }
+
+        @Override
+        int polyHash() {
+            int h = hash;
+            if (h == 0) {
+                h = deepHash();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        int cachedHash() {
+            return hash;
+        }
+    }
+
+    static final class Itr extends Cursor<DoublePDQueue> implements PrimitiveIterator.OfDouble {
+
+        Itr(DoublePDQueue q, boolean reverse) {
+            super(q, reverse, false);
+        }
+
+        @Override
+        public double nextDouble() {
+            return Double.longBitsToDouble(nextBits());
+        }
+    }
+
+    static final class Spl extends Cursor<DoublePDQueue> implements Spliterator.OfDouble {
+
+        Spl(DoublePDQueue q) {
+            super(q, false, true);
+        }
+
+        private Spl() {
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (remaining <= 0) {
+                return false;
+            }
+            action.accept(Double.longBitsToDouble(nextBits()));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            while (remaining > 0) {
+                action.accept(Double.longBitsToDouble(nextBits()));
+            }
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            Spl prefix = new Spl();
+            return split(prefix) ? prefix : null;
+        }
+    }
+}
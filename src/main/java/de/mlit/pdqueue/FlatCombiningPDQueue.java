@@ -0,0 +1,259 @@
+package de.mlit.pdqueue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A thread safe, unbounded, mutable deque over a PDQueue for high contention, using flat combining. Each thread
+ * publishes its operation in a record of its own. The thread which gets the combiner lock collects the pending
+ * operations of all threads and applies them in a single update of the persistent queue: an offer and a poll at the
+ * same end are paired off without touching the queue, the remaining offers are added with consAllL and consAllR,
+ * and the remaining polls are served by splitting off a prefix and a suffix. The other threads wait for their
+ * record to be served.
+ * <p>
+ * Records of threads which have not used the deque for a while are dropped from the list the combiner scans, and
+ * are added again when the thread uses the deque again. Null elements are not permitted.
+ * @param <E> the type of the elements
+ */
+public class FlatCombiningPDQueue<E> {
+
+    private static final int NONE = 0;
+    private static final int OFFER_FIRST = 1;
+    private static final int OFFER_LAST = 2;
+    private static final int POLL_FIRST = 3;
+    private static final int POLL_LAST = 4;
+
+    /**
+     * Number of combining passes after which an idle record is dropped
+     */
+    private static final int MAX_AGE = 1024;
+
+    static final class Record {
+        /**
+         * The pending operation, NONE when it has been served
+         */
+        volatile int op;
+        volatile boolean listed;
+        Object arg;
+        Object result;
+        /**
+         * The combining pass which served the record last, only used by the combiner
+         */
+        long lastUsed;
+    }
+
+    private volatile PDQueue<E> current;
+    private final AtomicBoolean lock = new AtomicBoolean();
+    private final ConcurrentLinkedQueue<Record> records = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Record> record = ThreadLocal.withInitial(Record::new);
+
+    // used by the combiner only
+    private long passes;
+    private final List<Record> offersFirst = new ArrayList<>();
+    private final List<Record> offersLast = new ArrayList<>();
+    private final List<Record> pollsFirst = new ArrayList<>();
+    private final List<Record> pollsLast = new ArrayList<>();
+
+    /**
+     * Creates an empty deque
+     */
+    public FlatCombiningPDQueue() {
+        this(PDQueue.empty());
+    }
+
+    /**
+     * Creates a deque starting with the elements of a queue
+     * @param initial the initial elements
+     */
+    public FlatCombiningPDQueue(PDQueue<E> initial) {
+        this.current = initial;
+    }
+
+    /**
+     * Gives the current version of the deque. This takes constant time.
+     * @return the queue of the current elements
+     */
+    public PDQueue<E> snapshot() {
+        return current;
+    }
+
+    /**
+     * Gives the number of elements
+     * @return the size
+     */
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * Checks if the deque is empty
+     * @return true if there are no elements
+     */
+    public boolean isEmpty() {
+        return current.isEmpty();
+    }
+
+    /**
+     * Adds an element to the left
+     * @param e the element
+     */
+    public void offerFirst(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        execute(OFFER_FIRST, e);
+    }
+
+    /**
+     * Adds an element to the right
+     * @param e the element
+     */
+    public void offerLast(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        execute(OFFER_LAST, e);
+    }
+
+    /**
+     * Removes the left most element
+     * @return the element, or null if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E pollFirst() {
+        return (E) execute(POLL_FIRST, null);
+    }
+
+    /**
+     * Removes the right most element
+     * @return the element, or null if the deque is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E pollLast() {
+        return (E) execute(POLL_LAST, null);
+    }
+
+    private Object execute(int op, Object arg) {
+        Record r = record.get();
+        r.arg = arg;
+        r.op = op;
+        for (int spins = 0; ; spins++) {
+            if (!r.listed) {
+                // the combiner unlists idle records only, after removing them
+                r.listed = true;
+                records.add(r);
+            }
+            if (!lock.get() && lock.compareAndSet(false, true)) {
+                try {
+                    combine();
+                } finally {
+                    lock.set(false);
+                }
+            }
+            if (r.op == NONE) {
+                Object result = r.result;
+                r.result = null;
+                r.arg = null;
+                return result;
+            } else if (spins > 64) {
+                Thread.yield();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void combine() {
+        long pass = ++passes;
+        for (Iterator<Record> it = records.iterator(); it.hasNext(); ) {
+            Record r = it.next();
+            switch (r.op) {
+                case OFFER_FIRST:
+                    offersFirst.add(r);
+                    break;
+                case OFFER_LAST:
+                    offersLast.add(r);
+                    break;
+                case POLL_FIRST:
+                    pollsFirst.add(r);
+                    break;
+                case POLL_LAST:
+                    pollsLast.add(r);
+                    break;
+                default:
+                    if (pass - r.lastUsed > MAX_AGE) {
+                        it.remove();
+                        r.listed = false;
+                    }
+                    continue;
+            }
+            r.lastUsed = pass;
+        }
+        int eliminatedFirst = eliminate(offersFirst, pollsFirst);
+        int eliminatedLast = eliminate(offersLast, pollsLast);
+
+        PDQueue<E> q = current;
+        int n = offersFirst.size() - eliminatedFirst;
+        if (n > 0) {
+            // the offer applied last ends up left most
+            Object[] elements = new Object[n];
+            for (int i = 0; i < n; i++) {
+                elements[n - 1 - i] = offersFirst.get(eliminatedFirst + i).arg;
+            }
+            q = q.consAllL((E[]) elements);
+        }
+        n = offersLast.size() - eliminatedLast;
+        if (n > 0) {
+            Object[] elements = new Object[n];
+            for (int i = 0; i < n; i++) {
+                elements[i] = offersLast.get(eliminatedLast + i).arg;
+            }
+            q = q.consAllR((E[]) elements);
+        }
+        n = Math.min(pollsFirst.size() - eliminatedFirst, q.size());
+        if (n > 0) {
+            PDQueue.Split<E> split = q.splitAt(n);
+            Iterator<E> it = split.left().iterator();
+            for (int i = 0; i < n; i++) {
+                pollsFirst.get(eliminatedFirst + i).result = it.next();
+            }
+            q = split.right();
+        }
+        n = Math.min(pollsLast.size() - eliminatedLast, q.size());
+        if (n > 0) {
+            PDQueue.Split<E> split = q.splitAt(q.size() - n);
+            Iterator<E> it = split.right().descendingIterator();
+            for (int i = 0; i < n; i++) {
+                pollsLast.get(eliminatedLast + i).result = it.next();
+            }
+            q = split.left();
+        }
+        current = q;
+        // polls beyond the size of the queue keep result null
+        release(offersFirst);
+        release(offersLast);
+        release(pollsFirst);
+        release(pollsLast);
+    }
+
+    /**
+     * Pairs off offers and polls at the same end, each poll getting the element of an offer applied right before it
+     * @return the number of pairs
+     */
+    private static int eliminate(List<Record> offers, List<Record> polls) {
+        int n = Math.min(offers.size(), polls.size());
+        for (int i = 0; i < n; i++) {
+            polls.get(i).result = offers.get(i).arg;
+        }
+        return n;
+    }
+
+    private static void release(List<Record> served) {
+        for (Record r : served) {
+            r.op = NONE;
+        }
+        served.clear();
+    }
+}
@@ -0,0 +1,687 @@
+package de.mlit.pdqueue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a persistent double ended queue of int values. It has the same structure as {@link PDQueue},
+ * but the digits of the top level hold the values in int fields, so the values are never boxed. The nested levels
+ * are ordinary queues of these digits.
+ */
+public abstract class IntPDQueue extends PrimitivePDQueue<IntPDQueue> {
+
+    /**
+     * Returns an empty queue.
+     * @return an empty IntPDQueue
+     */
+    public static IntPDQueue empty() {
+        return Q0.EMPTY;
+    }
+
+    /**
+     * Returns a singleton queue with the given value
+     * @param e the value to be contained in the queue
+     * @return the queue containing just the one value e
+     */
+    public static IntPDQueue singleton(int e) {
+        return new Q1(e);
+    }
+
+    /**
+     * Returns a queue with the given values from left to right
+     * @param values the values to be contained in the queue
+     * @return the queue containing the values
+     */
+    public static IntPDQueue of(int... values) {
+        return fromArray(values, 0, values.length);
+    }
+
+    /**
+     * Returns a queue containing the values of the array from index from (inclusive) to index to (exclusive). The
+     * queue is built bottom up in linear time like {@link PDQueue#fromArray(Object[], int, int)}.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;values.length or from&gt;to
+     * @param values the array containing the values
+     * @param from the index of the first value
+     * @param to the index after the last value
+     * @return the queue containing the values
+     */
+    public static IntPDQueue fromArray(int[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        return Q0.EMPTY.build(values, from, to);
+    }
+
+    /**
+     * Returns the concatenation of two queues
+     * @param q1 the left queue
+     * @param q2 the right queue
+     * @return the concatenation of q1 and q2
+     */
+    public static IntPDQueue concat(IntPDQueue q1, IntPDQueue q2) {
+        return concatenate(q1, q2);
+    }
+
+    IntPDQueue() {
+    }
+
+    /**
+     * Returns the n-th value (zero based) of the queue. The 0-th value is the leftmost value, the (size()-1)-th value
+     * the right most.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the n-th value
+     */
+    public int getInt(int n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return (int) bitsAt(n);
+    }
+
+    /**
+     * Gives the left most value
+     * @throws NoSuchElementException if the queue is empty
+     * @return the left most value
+     */
+    public int headLInt() {
+        return (int) headLBits();
+    }
+
+    /**
+     * Gives the right most value
+     * @throws NoSuchElementException if the queue is empty
+     * @return the right most value
+     */
+    public int headRInt() {
+        return (int) headRBits();
+    }
+
+    /**
+     * Gives a queue with value e added to the left
+     * @param e the value to be added
+     * @return the queue with value e added to the left
+     */
+    public abstract IntPDQueue consL(int e);
+
+    /**
+     * Gives a queue with value e added to the right
+     * @param e the value to be added
+     * @return the queue with value e added to the right
+     */
+    public abstract IntPDQueue consR(int e);
+
+    /**
+     * Gives the queue with the leftmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value removed
+     */
+    @Override
+    public abstract IntPDQueue tailL();
+
+    /**
+     * Gives the queue with the rightmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value removed
+     */
+    @Override
+    public abstract IntPDQueue tailR();
+
+    /**
+     * Gives a queue with the leftmost value replaced by e
+     * @param e the value to replace the leftmost value with
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value replaced by e
+     */
+    public abstract IntPDQueue replaceL(int e);
+
+    /**
+     * Gives a queue with the rightmost value replaced by e
+     * @param e the value to replace the rightmost value with
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value replaced by e
+     */
+    public abstract IntPDQueue replaceR(int e);
+
+    /**
+     * Calls accept on the consumer for each value in the queue from left to right
+     * @param consumer
+     */
+    public void forEachLtoR(IntConsumer consumer) {
+        iterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * Calls accept on the consumer for each value in the queue from right to left
+     * @param consumer
+     */
+    public void forEachRtoL(IntConsumer consumer) {
+        descendingIterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * Returns the values of the queue as array
+     * @return an array containing all values of the queue
+     */
+    public int[] toArray() {
+        int[] result = new int[size()];
+        PrimitiveIterator.OfInt it = iterator();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = it.nextInt();
+        }
+        return result;
+    }
+
+    /**
+     * Gives an iterator over the values of the queue from left to right
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new Itr(this, false);
+    }
+
+    /**
+     * Gives an iterator over the values of the queue from right to left
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return new Itr(this, true);
+    }
+
+    /**
+     * Gives a spliterator over the values of the queue from left to right
+     * @return the spliterator
+     */
+    public Spliterator.OfInt spliterator() {
+        return new Spl(this);
+    }
+
+    /**
+     * Gives a sequential stream of the values of the queue from left to right
+     * @return the stream
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Gives a parallel stream of the values of the queue from left to right
+     * @return the stream
+     */
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof IntPDQueue && equalValues(this, (IntPDQueue) obj);
+    }
+
+    @Override
+    int hashOf(long bits) {
+        return Integer.hashCode((int) bits);
+    }
+
+    @Override
+    IntPDQueue consLBits(long e) {
+        return consL((int) e);
+    }
+
+    @Override
+    IntPDQueue consRBits(long e) {
+        return consR((int) e);
+    }
+
+    @Override
+    IntPDQueue emptyQ() {
+        return Q0.EMPTY;
+    }
+
+    @Override
+    IntPDQueue pair(long e0, long e1) {
+        return new Q2((int) e0, (int) e1);
+    }
+
+    @Override
+    IntPDQueue digit(Object values, int from, int count) {
+        int[] a = (int[]) values;
+        switch (count) {
+            case 0:
+                return Q0.EMPTY;
+            case 1:
+                return new Q1(a[from]);
+            case 2:
+                return new Q2(a[from], a[from + 1]);
+            case 3:
+                return new Q3(a[from], a[from + 1], a[from + 2]);
+            default:
+                return new Q4(a[from], a[from + 1], a[from + 2], a[from + 3]);
+        }
+    }
+
+    @Override
+    IntPDQueue complQ(IntPDQueue left, PDQueue<IntPDQueue> middle, IntPDQueue right) {
+        return new Qn(left, middle, right);
+    }
+
+    @SuppressWarnings("unchecked")
+    static PDQueue<IntPDQueue> emptyMiddle() {
+        return PDQueueFactory.Digits.EMPTY;
+    }
+
+    static final class Q0 extends IntPDQueue {
+
+        static final Q0 EMPTY = new Q0();
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        int kind() {
+            return 0;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public IntPDQueue consL(int e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public IntPDQueue consR(int e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public IntPDQueue tailL() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public IntPDQueue tailR() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public IntPDQueue replaceL(int e) {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public IntPDQueue replaceR(int e) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    static final class Q1 extends IntPDQueue {
+        private final int e0;
+
+        Q1(int e0) {
+            this.e0 = e0;
+        }
+
+        @Override
+        int kind() {
+            return 1;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            return e0;
+        }
+
+        @Override
+        public IntPDQueue consL(int e) {
+            return new Q2(e, e0);
+        }
+
+        @Override
+        public IntPDQueue consR(int e) {
+            return new Q2(e0, e);
+        }
+
+        @Override
+        public IntPDQueue tailL() {
+            return Q0.EMPTY;
+        }
+
+        @Override
+        public IntPDQueue tailR() {
+            return Q0.EMPTY;
+        }
+
+        @Override
+        public IntPDQueue replaceL(int e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public IntPDQueue replaceR(int e) {
+            return new Q1(e);
+        }
+    }
+
+    static final class Q2 extends IntPDQueue {
+        private final int e0, e1;
+
+        Q2(int e0, int e1) {
+            this.e0 = e0;
+            this.e1 = e1;
+        }
+
+        @Override
+        int kind() {
+            return 2;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            return i == 0 ? e0 : e1;
+        }
+
+        @Override
+        public IntPDQueue consL(int e) {
+            return new Q3(e, e0, e1);
+        }
+
+        @Override
+        public IntPDQueue consR(int e) {
+            return new Q3(e0, e1, e);
+        }
+
+        @Override
+        public IntPDQueue tailL() {
+            return new Q1(e1);
+        }
+
+        @Override
+        public IntPDQueue tailR() {
+            return new Q1(e0);
+        }
+
+        @Override
+        public IntPDQueue replaceL(int e) {
+            return new Q2(e, e1);
+        }
+
+        @Override
+        public IntPDQueue replaceR(int e) {
+            return new Q2(e0, e);
+        }
+    }
+
+    static final class Q3 extends IntPDQueue {
+        private final int e0, e1, e2;
+
+        Q3(int e0, int e1, int e2) {
+            this.e0 = e0;
+            this.e1 = e1;
+            this.e2 = e2;
+        }
+
+        @Override
+        int kind() {
+            return 3;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            switch (i) {
+                case 0:
+                    return e0;
+                case 1:
+                    return e1;
+                default:
+                    return e2;
+            }
+        }
+
+        @Override
+        public IntPDQueue consL(int e) {
+            return new Q4(e, e0, e1, e2);
+        }
+
+        @Override
+        public IntPDQueue consR(int e) {
+            return new Q4(e0, e1, e2, e);
+        }
+
+        @Override
+        public IntPDQueue tailL() {
+            return new Q2(e1, e2);
+        }
+
+        @Override
+        public IntPDQueue tailR() {
+            return new Q2(e0, e1);
+        }
+
+        @Override
+        public IntPDQueue replaceL(int e) {
+            return new Q3(e, e1, e2);
+        }
+
+        @Override
+        public IntPDQueue replaceR(int e) {
+            return new Q3(e0, e1, e);
+        }
+    }
+
+    static final class Q4 extends IntPDQueue {
+        private final int e0, e1, e2, e3;
+
+        Q4(int e0, int e1, int e2, int e3) {
+            this.e0 = e0;
+            this.e1 = e1;
+            this.e2 = e2;
+            this.e3 = e3;
+        }
+
+        @Override
+        int kind() {
+            return 4;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            switch (i) {
+                case 0:
+                    return e0;
+                case 1:
+                    return e1;
+                case 2:
+                    return e2;
+                default:
+                    return e3;
+            }
+        }
+
+        @Override
+        public IntPDQueue consL(int e) {
+            return new Qn(new Q2(e, e0), new Q3(e1, e2, e3));
+        }
+
+        @Override
+        public IntPDQueue consR(int e) {
+            return new Qn(new Q3(e0, e1, e2), new Q2(e3, e));
+        }
+
+        @Override
+        public IntPDQueue tailL() {
+            return new Q3(e1, e2, e3);
+        }
+
+        @Override
+        public IntPDQueue tailR() {
+            return new Q3(e0, e1, e2);
+        }
+
+        @Override
+        public IntPDQueue replaceL(int e) {
+            return new Q4(e, e1, e2, e3);
+        }
+
+        @Override
+        public IntPDQueue replaceR(int e) {
+            return new Q4(e0, e1, e2, e);
+        }
+    }
+
+    static final class Qn extends IntPDQueue {
+        private final int size;
+        int hash;
+        final IntPDQueue left;
+        final PDQueue<IntPDQueue> middle;
+        final IntPDQueue right;
+
+        Qn(IntPDQueue left, PDQueue<IntPDQueue> middle, IntPDQueue right) {
+            this.size = left.size() + middle.size() + right.size();
+            this.left = left;
+            this.middle = middle;
+            this.right = right;
+        }
+
+        Qn(IntPDQueue left, IntPDQueue right) {
+            this(left, emptyMiddle(), right);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        int kind() {
+            return 5;
+        }
+
+        @Override
+        IntPDQueue left() {
+            return left;
+        }
+
+        @Override
+        PDQueue<IntPDQueue> middle() {
+            return middle;
+        }
+
+        @Override
+        IntPDQueue right() {
+            return right;
+        }
+
+        @Override
+        long bitsAt(int n) {
+            return deepBitsAt(n);
+        }
+
+        @Override
+        public IntPDQueue consL(int e) {
+            return deepConsL(e);
+        }
+
+        @Override
+        public IntPDQueue consR(int e) {
+            return deepConsR(e);
+        }
+
+        @Override
+        public IntPDQueue tailL() {
+            return deepTailL();
+        }
+
+        @Override
+        public IntPDQueue tailR() {
+            return deepTailR();
+        }
+
+        @Override
+        public IntPDQueue replaceL(int e) {
+            return new Qn(left.replaceL(e), middle, right);
+        }
+
+        @Override
+        public IntPDQueue replaceR(int e) {
+            return new Qn(left, middle, right.replaceR(e));
+        }
+
+        @Override
+        IntPDQueue appendLTo(IntPDQueue q) {
+            return concat(this, q);
+        }
+
+        @Override
+        IntPDQueue appendRTo(IntPDQueue q) {
+            return concat(q, this);
+        }
+
+        @Override
+        int polyHash() {
+            int h = hash;
+            if (h == 0) {
+                h = deepHash();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        int cachedHash() {
+            return hash;
+        }
+    }
+
+    static final class Itr extends Cursor<IntPDQueue> implements PrimitiveIterator.OfInt {
+
+        Itr(IntPDQueue q, boolean reverse) {
+            super(q, reverse, false);
+        }
+
+        @Override
+        public int nextInt() {
+            return (int) nextBits();
+        }
+    }
+
+    static final class Spl extends Cursor<IntPDQueue> implements Spliterator.OfInt {
+
+        Spl(IntPDQueue q) {
+            super(q, false, true);
+        }
+
+        private Spl() {
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (remaining <= 0) {
+                return false;
+            }
+            action.accept((int) nextBits());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            while (remaining > 0) {
+                action.accept((int) nextBits());
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            Spl prefix = new Spl();
+            return split(prefix) ? prefix : null;
+        }
+    }
+}
@@ -0,0 +1,687 @@
+package de.mlit.pdqueue;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class represents a persistent double ended queue of long values. It has the same structure as {@link PDQueue},
+ * but the digits of the top level hold the values in long fields, so the values are never boxed. The nested levels
+ * are ordinary queues of these digits.
+ */
+public abstract class LongPDQueue extends PrimitivePDQueue<LongPDQueue> {
+
+    /**
+     * Returns an empty queue.
+     * @return an empty LongPDQueue
+     */
+    public static LongPDQueue empty() {
+        return Q0.EMPTY;
+    }
+
+    /**
+     * Returns a singleton queue with the given value
+     * @param e the value to be contained in the queue
+     * @return the queue containing just the one value e
+     */
+    public static LongPDQueue singleton(long e) {
+        return new Q1(e);
+    }
+
+    /**
+     * Returns a queue with the given values from left to right
+     * @param values the values to be contained in the queue
+     * @return the queue containing the values
+     */
+    public static LongPDQueue of(long... values) {
+        return fromArray(values, 0, values.length);
+    }
+
+    /**
+     * Returns a queue containing the values of the array from index from (inclusive) to index to (exclusive). The
+     * queue is built bottom up in linear time like {@link PDQueue#fromArray(Object[], int, int)}.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;values.length or from&gt;to
+     * @param values the array containing the values
+     * @param from the index of the first value
+     * @param to the index after the last value
+     * @return the queue containing the values
+     */
+    public static LongPDQueue fromArray(long[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        return Q0.EMPTY.build(values, from, to);
+    }
+
+    /**
+     * Returns the concatenation of two queues
+     * @param q1 the left queue
+     * @param q2 the right queue
+     * @return the concatenation of q1 and q2
+     */
+    public static LongPDQueue concat(LongPDQueue q1, LongPDQueue q2) {
+        return concatenate(q1, q2);
+    }
+
+    LongPDQueue() {
+    }
+
+    /**
+     * Returns the n-th value (zero based) of the queue. The 0-th value is the leftmost value, the (size()-1)-th value
+     * the right most.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the n-th value
+     */
+    public long getLong(int n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return bitsAt(n);
+    }
+
+    /**
+     * Gives the left most value
+     * @throws NoSuchElementException if the queue is empty
+     * @return the left most value
+     */
+    public long headLLong() {
+        return headLBits();
+    }
+
+    /**
+     * Gives the right most value
+     * @throws NoSuchElementException if the queue is empty
+     * @return the right most value
+     */
+    public long headRLong() {
+        return headRBits();
+    }
+
+    /**
+     * Gives a queue with value e added to the left
+     * @param e the value to be added
+     * @return the queue with value e added to the left
+     */
+    public abstract LongPDQueue consL(long e);
+
+    /**
+     * Gives a queue with value e added to the right
+     * @param e the value to be added
+     * @return the queue with value e added to the right
+     */
+    public abstract LongPDQueue consR(long e);
+
+    /**
+     * Gives the queue with the leftmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value removed
+     */
+    @Override
+    public abstract LongPDQueue tailL();
+
+    /**
+     * Gives the queue with the rightmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value removed
+     */
+    @Override
+    public abstract LongPDQueue tailR();
+
+    /**
+     * Gives a queue with the leftmost value replaced by e
+     * @param e the value to replace the leftmost value with
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value replaced by e
+     */
+    public abstract LongPDQueue replaceL(long e);
+
+    /**
+     * Gives a queue with the rightmost value replaced by e
+     * @param e the value to replace the rightmost value with
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value replaced by e
+     */
+    public abstract LongPDQueue replaceR(long e);
+
+    /**
+     * Calls accept on the consumer for each value in the queue from left to right
+     * @param consumer
+     */
+    public void forEachLtoR(LongConsumer consumer) {
+        iterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * Calls accept on the consumer for each value in the queue from right to left
+     * @param consumer
+     */
+    public void forEachRtoL(LongConsumer consumer) {
+        descendingIterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * Returns the values of the queue as array
+     * @return an array containing all values of the queue
+     */
+    public long[] toArray() {
+        long[] result = new long[size()];
+        PrimitiveIterator.OfLong it = iterator();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = it.nextLong();
+        }
+        return result;
+    }
+
+    /**
+     * Gives an iterator over the values of the queue from left to right
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new Itr(this, false);
+    }
+
+    /**
+     * Gives an iterator over the values of the queue from right to left
+     * @return the iterator
+     */
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return new Itr(this, true);
+    }
+
+    /**
+     * Gives a spliterator over the values of the queue from left to right
+     * @return the spliterator
+     */
+    public Spliterator.OfLong spliterator() {
+        return new Spl(this);
+    }
+
+    /**
+     * Gives a sequential stream of the values of the queue from left to right
+     * @return the stream
+     */
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * Gives a parallel stream of the values of the queue from left to right
+     * @return the stream
+     */
+    public LongStream parallelStream() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof LongPDQueue && equalValues(this, (LongPDQueue) obj);
+    }
+
+    @Override
+    int hashOf(long bits) {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    LongPDQueue consLBits(long e) {
+        return consL(e);
+    }
+
+    @Override
+    LongPDQueue consRBits(long e) {
+        return consR(e);
+    }
+
+    @Override
+    LongPDQueue emptyQ() {
+        return Q0.EMPTY;
+    }
+
+    @Override
+    LongPDQueue pair(long e0, long e1) {
+        return new Q2(e0, e1);
+    }
+
+    @Override
+    LongPDQueue digit(Object values, int from, int count) {
+        long[] a = (long[]) values;
+        switch (count) {
+            case 0:
+                return Q0.EMPTY;
+            case 1:
+                return new Q1(a[from]);
+            case 2:
+                return new Q2(a[from], a[from + 1]);
+            case 3:
+                return new Q3(a[from], a[from + 1], a[from + 2]);
+            default:
+                return new Q4(a[from], a[from + 1], a[from + 2], a[from + 3]);
+        }
+    }
+
+    @Override
+    LongPDQueue complQ(LongPDQueue left, PDQueue<LongPDQueue> middle, LongPDQueue right) {
+        return new Qn(left, middle, right);
+    }
+
+    @SuppressWarnings("unchecked")
+    static PDQueue<LongPDQueue> emptyMiddle() {
+        return PDQueueFactory.Digits.EMPTY;
+    }
+
+    static final class Q0 extends LongPDQueue {
+
+        static final Q0 EMPTY = new Q0();
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        int kind() {
+            return 0;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        public LongPDQueue consL(long e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public LongPDQueue consR(long e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public LongPDQueue tailL() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public LongPDQueue tailR() {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public LongPDQueue replaceL(long e) {
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public LongPDQueue replaceR(long e) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    static final class Q1 extends LongPDQueue {
+        private final long e0;
+
+        Q1(long e0) {
+            this.e0 = e0;
+        }
+
+        @Override
+        int kind() {
+            return 1;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            return e0;
+        }
+
+        @Override
+        public LongPDQueue consL(long e) {
+            return new Q2(e, e0);
+        }
+
+        @Override
+        public LongPDQueue consR(long e) {
+            return new Q2(e0, e);
+        }
+
+        @Override
+        public LongPDQueue tailL() {
+            return Q0.EMPTY;
+        }
+
+        @Override
+        public LongPDQueue tailR() {
+            return Q0.EMPTY;
+        }
+
+        @Override
+        public LongPDQueue replaceL(long e) {
+            return new Q1(e);
+        }
+
+        @Override
+        public LongPDQueue replaceR(long e) {
+            return new Q1(e);
+        }
+    }
+
+    static final class Q2 extends LongPDQueue {
+        private final long e0, e1;
+
+        Q2(long e0, long e1) {
+            this.e0 = e0;
+            this.e1 = e1;
+        }
+
+        @Override
+        int kind() {
+            return 2;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            return i == 0 ? e0 : e1;
+        }
+
+        @Override
+        public LongPDQueue consL(long e) {
+            return new Q3(e, e0, e1);
+        }
+
+        @Override
+        public LongPDQueue consR(long e) {
+            return new Q3(e0, e1, e);
+        }
+
+        @Override
+        public LongPDQueue tailL() {
+            return new Q1(e1);
+        }
+
+        @Override
+        public LongPDQueue tailR() {
+            return new Q1(e0);
+        }
+
+        @Override
+        public LongPDQueue replaceL(long e) {
+            return new Q2(e, e1);
+        }
+
+        @Override
+        public LongPDQueue replaceR(long e) {
+            return new Q2(e0, e);
+        }
+    }
+
+    static final class Q3 extends LongPDQueue {
+        private final long e0, e1, e2;
+
+        Q3(long e0, long e1, long e2) {
+            this.e0 = e0;
+            this.e1 = e1;
+            this.e2 = e2;
+        }
+
+        @Override
+        int kind() {
+            return 3;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            switch (i) {
+                case 0:
+                    return e0;
+                case 1:
+                    return e1;
+                default:
+                    return e2;
+            }
+        }
+
+        @Override
+        public LongPDQueue consL(long e) {
+            return new Q4(e, e0, e1, e2);
+        }
+
+        @Override
+        public LongPDQueue consR(long e) {
+            return new Q4(e0, e1, e2, e);
+        }
+
+        @Override
+        public LongPDQueue tailL() {
+            return new Q2(e1, e2);
+        }
+
+        @Override
+        public LongPDQueue tailR() {
+            return new Q2(e0, e1);
+        }
+
+        @Override
+        public LongPDQueue replaceL(long e) {
+            return new Q3(e, e1, e2);
+        }
+
+        @Override
+        public LongPDQueue replaceR(long e) {
+            return new Q3(e0, e1, e);
+        }
+    }
+
+    static final class Q4 extends LongPDQueue {
+        private final long e0, e1, e2, e3;
+
+        Q4(long e0, long e1, long e2, long e3) {
+            this.e0 = e0;
+            this.e1 = e1;
+            this.e2 = e2;
+            this.e3 = e3;
+        }
+
+        @Override
+        int kind() {
+            return 4;
+        }
+
+        @Override
+        long bitsAt(int i) {
+            switch (i) {
+                case 0:
+                    return e0;
+                case 1:
+                    return e1;
+                case 2:
+                    return e2;
+                default:
+                    return e3;
+            }
+        }
+
+        @Override
+        public LongPDQueue consL(long e) {
+            return new Qn(new Q2(e, e0), new Q3(e1, e2, e3));
+        }
+
+        @Override
+        public LongPDQueue consR(long e) {
+            return new Qn(new Q3(e0, e1, e2), new Q2(e3, e));
+        }
+
+        @Override
+        public LongPDQueue tailL() {
+            return new Q3(e1, e2, e3);
+        }
+
+        @Override
+        public LongPDQueue tailR() {
+            return new Q3(e0, e1, e2);
+        }
+
+        @Override
+        public LongPDQueue replaceL(long e) {
+            return new Q4(e, e1, e2, e3);
+        }
+
+        @Override
+        public LongPDQueue replaceR(long e) {
+            return new Q4(e0, e1, e2, e);
+        }
+    }
+
+    static final class Qn extends LongPDQueue {
+        private final int size;
+        int hash;
+        final LongPDQueue left;
+        final PDQueue<LongPDQueue> middle;
+        final LongPDQueue right;
+
+        Qn(LongPDQueue left, PDQueue<LongPDQueue> middle, LongPDQueue right) {
+            this.size = left.size() + middle.size() + right.size();
+            this.left = left;
+            this.middle = middle;
+            this.right = right;
+        }
+
+        Qn(LongPDQueue left, LongPDQueue right) {
+            this(left, emptyMiddle(), right);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        int kind() {
+            return 5;
+        }
+
+        @Override
+        LongPDQueue left() {
+            return left;
+        }
+
+        @Override
+        PDQueue<LongPDQueue> middle() {
+            return middle;
+        }
+
+        @Override
+        LongPDQueue right() {
+            return right;
+        }
+
+        @Override
+        long bitsAt(int n) {
+            return deepBitsAt(n);
+        }
+
+        @Override
+        public LongPDQueue consL(long e) {
+            return deepConsL(e);
+        }
+
+        @Override
+        public LongPDQueue consR(long e) {
+            return deepConsR(e);
+        }
+
+        @Override
+        public LongPDQueue tailL() {
+            return deepTailL();
+        }
+
+        @Override
+        public LongPDQueue tailR() {
+            return deepTailR();
+        }
+
+        @Override
+        public LongPDQueue replaceL(long e) {
+            return new Qn(left.replaceL(e), middle, right);
+        }
+
+        @Override
+        public LongPDQueue replaceR(long e) {
+            return new Qn(left, middle, right.replaceR(e));
+        }
+
+        @Override
+        LongPDQueue appendLTo(LongPDQueue q) {
+            return concat(this, q);
+        }
+
+        @Override
+        LongPDQueue appendRTo(LongPDQueue q) {
+            return concat(q, this);
+        }
+
+        @Override
+        int polyHash() {
+            int h = hash;
+            if (h == 0) {
+                h = deepHash();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        int cachedHash() {
+            return hash;
+        }
+    }
+
+    static final class Itr extends Cursor<LongPDQueue> implements PrimitiveIterator.OfLong {
+
+        Itr(LongPDQueue q, boolean reverse) {
+            super(q, reverse, false);
+        }
+
+        @Override
+        public long nextLong() {
+            return nextBits();
+        }
+    }
+
+    static final class Spl extends Cursor<LongPDQueue> implements Spliterator.OfLong {
+
+        Spl(LongPDQueue q) {
+            super(q, false, true);
+        }
+
+        private Spl() {
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (remaining <= 0) {
+                return false;
+            }
+            action.accept(nextBits());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            while (remaining > 0) {
+                action.accept(nextBits());
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            Spl prefix = new Spl();
+            return split(prefix) ? prefix : null;
+        }
+    }
+}
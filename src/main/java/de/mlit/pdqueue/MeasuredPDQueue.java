@@ -0,0 +1,866 @@
+package de.mlit.pdqueue;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * A persistent double ended queue whose nodes cache a measure of their elements in addition to their size, in the
+ * style of finger trees. A measure maps elements into a monoid, e.g. the sum of weights, the maximal timestamp or
+ * the minimal priority of the elements. The measure of the whole queue is available in constant time, and search
+ * and splitWhere find the position where a monotone predicate on the measure of a prefix becomes true by descending
+ * along the cached measures in logarithmic time.
+ * @param <E> the type of the elements in the queue
+ * @param <M> the type of the measure
+ */
+public final class MeasuredPDQueue<E, M> implements Iterable<E> {
+
+    /**
+     * A monoid together with a mapping of elements into it. combine has to be associative with identity as neutral
+     * element.
+     * @param <E> the type of the elements
+     * @param <M> the type of the measure
+     */
+    public interface Measure<E, M> {
+
+        /**
+         * Gives the measure of no elements
+         * @return the neutral element
+         */
+        M identity();
+
+        /**
+         * Gives the measure of a single element
+         * @param e the element
+         * @return the measure of e
+         */
+        M of(E e);
+
+        /**
+         * Gives the measure of the elements measured by m1 followed by the elements measured by m2
+         * @param m1 the measure of the left elements
+         * @param m2 the measure of the right elements
+         * @return the combined measure
+         */
+        M combine(M m1, M m2);
+    }
+
+    private final Measure<E, M> measure;
+    private final PDQueue<E> q;
+
+    private MeasuredPDQueue(Measure<E, M> measure, PDQueue<E> q) {
+        this.measure = measure;
+        this.q = q;
+    }
+
+    /**
+     * Returns an empty queue.
+     * @param measure the measure cached in the nodes of the queue
+     * @param <E> the type of the elements in the queue
+     * @param <M> the type of the measure
+     * @return an empty MeasuredPDQueue
+     */
+    public static <E, M> MeasuredPDQueue<E, M> empty(Measure<E, M> measure) {
+        return new MeasuredPDQueue<>(measure, new Context<>(measure).top);
+    }
+
+    /**
+     * Returns the concatenation of two queues
+     * @param q1 the left queue
+     * @param q2 the right queue
+     * @param <E> the type of the elements in the queues
+     * @param <M> the type of the measure
+     * @return the concatenation of q1 and q2
+     * @throws IllegalArgumentException if the queues do not have the same measure
+     */
+    public static <E, M> MeasuredPDQueue<E, M> concat(MeasuredPDQueue<E, M> q1, MeasuredPDQueue<E, M> q2) {
+        if (q1.measure != q2.measure) {
+            throw new IllegalArgumentException("Queues with different measures");
+        }
+        return q1.with(q1.q.internalConcatenate(q1.q, q2.q));
+    }
+
+    private MeasuredPDQueue<E, M> with(PDQueue<E> q) {
+        return q == this.q ? this : new MeasuredPDQueue<>(measure, q);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <M> M valueOf(PDQueue<?> q) {
+        return ((Node<M>) q).value();
+    }
+
+    /**
+     * Gives the measure of all elements of the queue. This takes constant time.
+     * @return the measure
+     */
+    public M measure() {
+        return valueOf(q);
+    }
+
+    /**
+     * Gives the size of the queue, which is the number of elements contained in it
+     * @return the size
+     */
+    public int size() {
+        return q.size();
+    }
+
+    /**
+     * Checks if the queue is empty
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return q.isEmpty();
+    }
+
+    /**
+     * Returns the n-th element (zero based) of the queue
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the n-th element
+     */
+    public E get(int n) {
+        return q.get(n);
+    }
+
+    /**
+     * Gives the left most element
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return the left most element
+     */
+    public E headL() {
+        return q.headL();
+    }
+
+    /**
+     * Gives the right most element
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return the right most element
+     */
+    public E headR() {
+        return q.headR();
+    }
+
+    /**
+     * Returns a queue with e added to the left
+     * @param e the element to add
+     * @return the new queue
+     */
+    public MeasuredPDQueue<E, M> consL(E e) {
+        return with(q.consL(e));
+    }
+
+    /**
+     * Returns a queue with e added to the right
+     * @param e the element to add
+     * @return the new queue
+     */
+    public MeasuredPDQueue<E, M> consR(E e) {
+        return with(q.consR(e));
+    }
+
+    /**
+     * Returns the queue without the left most element
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return the new queue
+     */
+    public MeasuredPDQueue<E, M> tailL() {
+        return with(q.tailL());
+    }
+
+    /**
+     * Returns the queue without the right most element
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return the new queue
+     */
+    public MeasuredPDQueue<E, M> tailR() {
+        return with(q.tailR());
+    }
+
+    /**
+     * Gives a queue with the n-th element replaced by e
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @param e the value to replace the n-th element with
+     * @return the queue with the n-th element replaced by e
+     */
+    public MeasuredPDQueue<E, M> set(int n, E e) {
+        return with(q.set(n, e));
+    }
+
+    /**
+     * Gives a queue with e inserted at index n
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;size()
+     * @param n the index
+     * @param e the element to be inserted
+     * @return the queue with e inserted at index n
+     */
+    public MeasuredPDQueue<E, M> insertAt(int n, E e) {
+        return with(q.insertAt(n, e));
+    }
+
+    /**
+     * Gives a queue with the n-th element removed
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the queue with the n-th element removed
+     */
+    public MeasuredPDQueue<E, M> removeAt(int n) {
+        return with(q.removeAt(n));
+    }
+
+    /**
+     * Splits the queue in two at index n
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;size()
+     * @param n the index to split at
+     * @return the first n elements and the remaining elements
+     */
+    public Split<E, M> splitAt(int n) {
+        PDQueue.Split<E> split = q.splitAt(n);
+        return new Split<>(with(split.left()), with(split.right()));
+    }
+
+    /**
+     * Searches the first element at which the predicate becomes true for the measure of the elements up to and
+     * including it. The predicate has to be monotone, i.e. once true for a prefix it has to stay true for all longer
+     * prefixes. This takes logarithmic time.
+     * @param p the predicate
+     * @return the index of the element, or -1 if the predicate is false for the measure of the whole queue
+     */
+    @SuppressWarnings("unchecked")
+    public int search(Predicate<? super M> p) {
+        if (q.isEmpty() || !p.test(measure())) {
+            return -1;
+        }
+        PDQueue<?> node = q;
+        int level = 0;
+        int index = 0;
+        M acc = measure.identity();
+        while (true) {
+            if (node.kind() == 5) {
+                PDQueue.DQn<?> dq = (PDQueue.DQn<?>) node;
+                M m = measure.combine(acc, valueOf(dq.left));
+                if (p.test(m)) {
+                    node = dq.left;
+                    continue;
+                }
+                acc = m;
+                index += dq.left.size();
+                if (!dq.middle.isEmpty()) {
+                    m = measure.combine(acc, valueOf(dq.middle));
+                    if (p.test(m)) {
+                        node = dq.middle;
+                        level++;
+                        continue;
+                    }
+                    acc = m;
+                    index += dq.middle.size();
+                }
+                node = dq.right;
+            } else {
+                int k = node.kind();
+                for (int i = 0; ; i++) {
+                    Object c = node.child(i);
+                    M m = measure.combine(acc, level == 0 ? measure.of((E) c) : valueOf((PDQueue<?>) c));
+                    if (p.test(m) || i == k - 1) {
+                        if (level == 0) {
+                            return index;
+                        }
+                        node = (PDQueue<?>) c;
+                        level--;
+                        break;
+                    }
+                    acc = m;
+                    index += level == 0 ? 1 : ((PDQueue<?>) c).size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the queue before the first element found by search
+     * @param p the monotone predicate on the measure of prefixes
+     * @return the elements before the element found by search and the remaining elements, where the right part is
+     * empty if the predicate is false for the whole queue
+     */
+    public Split<E, M> splitWhere(Predicate<? super M> p) {
+        int n = search(p);
+        return splitAt(n < 0 ? size() : n);
+    }
+
+    /**
+     * Calls accept on the consumer for each element in the queue from left to right
+     * @param consumer
+     */
+    public void forEachLtoR(Consumer<E> consumer) {
+        q.forEachLtoR(consumer);
+    }
+
+    /**
+     * Calls accept on the consumer for each element in the queue from right to left
+     * @param consumer
+     */
+    public void forEachRtoL(Consumer<E> consumer) {
+        q.forEachRtoL(consumer);
+    }
+
+    /**
+     * Gives an iterator over the elements of the queue from left to right
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return q.iterator();
+    }
+
+    /**
+     * Gives a sequential stream of the elements of the queue from left to right
+     * @return the stream
+     */
+    public Stream<E> stream() {
+        return q.stream();
+    }
+
+    @Override
+    public int hashCode() {
+        return q.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof MeasuredPDQueue && q.equals(((MeasuredPDQueue<?, ?>) obj).q);
+    }
+
+    /**
+     * The result of splitting a queue in two.
+     * @param <E> the type of the elements in the queue
+     * @param <M> the type of the measure
+     */
+    public static final class Split<E, M> {
+        private final MeasuredPDQueue<E, M> left;
+        private final MeasuredPDQueue<E, M> right;
+
+        Split(MeasuredPDQueue<E, M> left, MeasuredPDQueue<E, M> right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Gives the left part of the split queue
+         * @return the left part
+         */
+        public MeasuredPDQueue<E, M> left() {
+            return left;
+        }
+
+        /**
+         * Gives the right part of the split queue
+         * @return the right part
+         */
+        public MeasuredPDQueue<E, M> right() {
+            return right;
+        }
+    }
+
+    /**
+     * The measure of the nodes derived from one empty queue together with the empty nodes of both factories, which
+     * are shared like Top.EMPTY and Nest.EMPTY instead of being allocated whenever a digit becomes empty
+     */
+    static final class Context<E, M> {
+        final Measure<E, M> measure;
+        final TopFactory.Q0<E, M> top;
+        private final NestFactory.Q0<?, M> nest;
+
+        Context(Measure<E, M> measure) {
+            this.measure = measure;
+            this.top = new TopFactory.Q0<>(this);
+            this.nest = new NestFactory.Q0<>(this);
+        }
+
+        @SuppressWarnings("unchecked")
+        <A> PDQueue<A> nest() {
+            return (PDQueue<A>) nest;
+        }
+    }
+
+    /**
+     * A node caching the measure of its elements
+     */
+    interface Node<M> {
+        M value();
+    }
+
+    /**
+     * Factory for the nodes of level 0, whose elements are the elements of the queue
+     */
+    interface TopFactory<E, M> extends PDQueueFactory<E> {
+
+        Context<E, M> context();
+
+        static class Q0<E, M> extends PDQueue.DQ0<E> implements TopFactory<E, M>, Node<M> {
+            final Context<E, M> context;
+
+            Q0(Context<E, M> context) {
+                this.context = context;
+            }
+
+            public Context<E, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return context.measure.identity();
+            }
+        }
+
+        static class Q1<E, M> extends PDQueue.DQ1<E> implements TopFactory<E, M>, Node<M> {
+            final Context<E, M> context;
+            final M value;
+
+            Q1(E e0, Context<E, M> context, M value) {
+                super(e0);
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+
+            public Context<E, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Q2<E, M> extends PDQueue.DQ2<E> implements TopFactory<E, M>, Node<M> {
+            final Context<E, M> context;
+            final M value;
+
+            Q2(E e0, E e1, Context<E, M> context, M value) {
+                super(e0, e1);
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return 2;
+            }
+
+            public Context<E, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Q3<E, M> extends PDQueue.DQ3<E> implements TopFactory<E, M>, Node<M> {
+            final Context<E, M> context;
+            final M value;
+
+            Q3(E e0, E e1, E e2, Context<E, M> context, M value) {
+                super(e0, e1, e2);
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return 3;
+            }
+
+            public Context<E, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Q4<E, M> extends PDQueue.DQ4<E> implements TopFactory<E, M>, Node<M> {
+            final Context<E, M> context;
+            final M value;
+
+            Q4(E e0, E e1, E e2, E e3, Context<E, M> context, M value) {
+                super(e0, e1, e2, e3);
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return 4;
+            }
+
+            public Context<E, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Qn<E, M> extends PDQueue.DQn<E> implements TopFactory<E, M>, Node<M> {
+            final Context<E, M> context;
+            final M value;
+
+            Qn(int size, PDQueue<E> left, PDQueue<PDQueue<E>> middle, PDQueue<E> right, Context<E, M> context,
+               M value) {
+                super(size, left, middle, right);
+                this.context = context;
+                this.value = value;
+            }
+
+            public Context<E, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        @Override
+        default PDQueue<E> internalEmpty() {
+            return context().top;
+        }
+
+        @Override
+        default PDQueue<E> internalSingleton(E e0) {
+            Context<E, M> c = context();
+            Measure<E, M> m = c.measure;
+            return new Q1<>(e0, c, m.of(e0));
+        }
+
+        @Override
+        default PDQueue<E> internalPair(E e0, E e1) {
+            Context<E, M> c = context();
+            Measure<E, M> m = c.measure;
+            return new Q2<>(e0, e1, c, m.combine(m.of(e0), m.of(e1)));
+        }
+
+        @Override
+        default PDQueue<E> internalTriple(E e0, E e1, E e2) {
+            Context<E, M> c = context();
+            Measure<E, M> m = c.measure;
+            return new Q3<>(e0, e1, e2, c, m.combine(m.combine(m.of(e0), m.of(e1)), m.of(e2)));
+        }
+
+        @Override
+        default PDQueue<E> internalQuadruple(E e0, E e1, E e2, E e3) {
+            Context<E, M> c = context();
+            Measure<E, M> m = c.measure;
+            M value = m.combine(m.combine(m.combine(m.of(e0), m.of(e1)), m.of(e2)), m.of(e3));
+            return new Q4<>(e0, e1, e2, e3, c, value);
+        }
+
+        @Override
+        default PDQueue<E> internalComplQ(PDQueue<E> left, PDQueue<PDQueue<E>> middle, PDQueue<E> right) {
+            Context<E, M> c = context();
+            Measure<E, M> m = c.measure;
+            M value = m.combine(m.combine(valueOf(left), valueOf(middle)), valueOf(right));
+            return new Qn<>(left.size() + middle.size() + right.size(), left, middle, right, c, value);
+        }
+
+        @Override
+        default PDQueue<E> internalComplQ(PDQueue<E> left, PDQueue<E> right) {
+            Context<E, M> c = context();
+            Measure<E, M> m = c.measure;
+            M value = m.combine(valueOf(left), valueOf(right));
+            return new Qn<>(left.size() + right.size(), left, c.nest(), right, c, value);
+        }
+
+        @Override
+        default int internalSizeOf(E e) {
+            return 1;
+        }
+
+        @Override
+        default int internalHashOf(E e) {
+            return e == null ? 0 : e.hashCode();
+        }
+    }
+
+    /**
+     * Factory for the nodes of the nested levels, whose elements are nodes of the level below
+     */
+    interface NestFactory<E, M> extends PDQueueFactory<PDQueue<E>> {
+
+        Context<?, M> context();
+
+        static class Q0<E, M> extends PDQueue.DQ0<PDQueue<E>> implements NestFactory<E, M>, Node<M> {
+            final Context<?, M> context;
+
+            Q0(Context<?, M> context) {
+                this.context = context;
+            }
+
+            public Context<?, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return context.measure.identity();
+            }
+        }
+
+        static class Q1<E, M> extends PDQueue.DQ1<PDQueue<E>> implements NestFactory<E, M>, Node<M> {
+            private final int size;
+            int hash;
+            final Context<?, M> context;
+            final M value;
+
+            Q1(int size, PDQueue<E> e0, Context<?, M> context, M value) {
+                super(e0);
+                this.size = size;
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+
+            public Context<?, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Q2<E, M> extends PDQueue.DQ2<PDQueue<E>> implements NestFactory<E, M>, Node<M> {
+            private final int size;
+            int hash;
+            final Context<?, M> context;
+            final M value;
+
+            Q2(int size, PDQueue<E> e0, PDQueue<E> e1, Context<?, M> context, M value) {
+                super(e0, e1);
+                this.size = size;
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+
+            public Context<?, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Q3<E, M> extends PDQueue.DQ3<PDQueue<E>> implements NestFactory<E, M>, Node<M> {
+            private final int size;
+            int hash;
+            final Context<?, M> context;
+            final M value;
+
+            Q3(int size, PDQueue<E> e0, PDQueue<E> e1, PDQueue<E> e2, Context<?, M> context, M value) {
+                super(e0, e1, e2);
+                this.size = size;
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+
+            public Context<?, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Q4<E, M> extends PDQueue.DQ4<PDQueue<E>> implements NestFactory<E, M>, Node<M> {
+            private final int size;
+            int hash;
+            final Context<?, M> context;
+            final M value;
+
+            Q4(int size, PDQueue<E> e0, PDQueue<E> e1, PDQueue<E> e2, PDQueue<E> e3, Context<?, M> context,
+               M value) {
+                super(e0, e1, e2, e3);
+                this.size = size;
+                this.context = context;
+                this.value = value;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+
+            public Context<?, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        static class Qn<E, M> extends PDQueue.DQn<PDQueue<E>> implements NestFactory<E, M>, Node<M> {
+            final Context<?, M> context;
+            final M value;
+
+            Qn(int size, PDQueue<PDQueue<E>> left, PDQueue<PDQueue<PDQueue<E>>> middle, PDQueue<PDQueue<E>> right,
+               Context<?, M> context, M value) {
+                super(size, left, middle, right);
+                this.context = context;
+                this.value = value;
+            }
+
+            public Context<?, M> context() {
+                return context;
+            }
+
+            public M value() {
+                return value;
+            }
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalEmpty() {
+            return context().nest();
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalSingleton(PDQueue<E> e0) {
+            return new Q1<>(e0.size(), e0, context(), valueOf(e0));
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalPair(PDQueue<E> e0, PDQueue<E> e1) {
+            Context<?, M> c = context();
+            Measure<?, M> m = c.measure;
+            return new Q2<>(e0.size() + e1.size(), e0, e1, c, m.combine(valueOf(e0), valueOf(e1)));
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalTriple(PDQueue<E> e0, PDQueue<E> e1, PDQueue<E> e2) {
+            Context<?, M> c = context();
+            Measure<?, M> m = c.measure;
+            M value = m.combine(m.combine(valueOf(e0), valueOf(e1)), valueOf(e2));
+            return new Q3<>(e0.size() + e1.size() + e2.size(), e0, e1, e2, c, value);
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalQuadruple(PDQueue<E> e0, PDQueue<E> e1, PDQueue<E> e2, PDQueue<E> e3) {
+            Context<?, M> c = context();
+            Measure<?, M> m = c.measure;
+            M value = m.combine(m.combine(m.combine(valueOf(e0), valueOf(e1)), valueOf(e2)), valueOf(e3));
+            return new Q4<>(e0.size() + e1.size() + e2.size() + e3.size(), e0, e1, e2, e3, c, value);
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalComplQ(PDQueue<PDQueue<E>> left, PDQueue<PDQueue<PDQueue<E>>> middle,
+                                                   PDQueue<PDQueue<E>> right) {
+            Context<?, M> c = context();
+            Measure<?, M> m = c.measure;
+            M value = m.combine(m.combine(valueOf(left), valueOf(middle)), valueOf(right));
+            return new Qn<>(left.size() + middle.size() + right.size(), left, middle, right, c, value);
+        }
+
+        @Override
+        default PDQueue<PDQueue<E>> internalComplQ(PDQueue<PDQueue<E>> left, PDQueue<PDQueue<E>> right) {
+            Context<?, M> c = context();
+            Measure<?, M> m = c.measure;
+            M value = m.combine(valueOf(left), valueOf(right));
+            return new Qn<>(left.size() + right.size(), left, c.nest(), right, c, value);
+        }
+
+        @Override
+        default int internalSizeOf(PDQueue<E> dq) {
+            return dq.size();
+        }
+
+        @Override
+        default int internalHashOf(PDQueue<E> dq) {
+            return dq.polyHash();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package de.mlit.pdqueue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * A persistent double ended queue of fixed size records stored off heap in a RecordArena. The queue itself is a
+ * LongPDQueue of record indices, so its digits hold plain longs and only the spine of the queue lives on the heap.
+ * Adding an element appends a record to the arena; the records are shared by all queues derived from each other.
+ * Removing an element does not free its record, see compact for reclaiming the space of records no longer used.
+ */
+public final class OffHeapPDQueue {
+
+    private final RecordArena arena;
+    private final LongPDQueue indices;
+
+    private OffHeapPDQueue(RecordArena arena, LongPDQueue indices) {
+        this.arena = arena;
+        this.indices = indices;
+    }
+
+    /**
+     * Returns an empty queue storing its records in arena
+     * @param arena the arena
+     * @return the empty queue
+     */
+    public static OffHeapPDQueue empty(RecordArena arena) {
+        return new OffHeapPDQueue(arena, LongPDQueue.empty());
+    }
+
+    /**
+     * Returns the concatenation of two queues
+     * @param q1 the left queue
+     * @param q2 the right queue
+     * @return the concatenation of q1 and q2
+     * @throws IllegalArgumentException if the queues store their records in different arenas
+     */
+    public static OffHeapPDQueue concat(OffHeapPDQueue q1, OffHeapPDQueue q2) {
+        if (q1.arena != q2.arena) {
+            throw new IllegalArgumentException("Queues of different arenas");
+        }
+        return new OffHeapPDQueue(q1.arena, LongPDQueue.concat(q1.indices, q2.indices));
+    }
+
+    /**
+     * Copies the records of the given queues into another arena and returns the queues with their indices remapped
+     * to the copies. Records used several times, by one queue or by several, are copied once, and the copies keep
+     * the order of the originals. This reclaims the space of all other records of the old arena, which can be
+     * closed and deleted afterwards. The returned queues share their records, but not their nodes.
+     * @param target the arena to copy the records to, usually a freshly created one
+     * @param queues the queues whose records are still used, all storing their records in the same arena
+     * @return the queues storing their records in target, in the order of queues
+     * @throws IllegalArgumentException if the queues store their records in different arenas, or in one with
+     * another record size than target or in target itself
+     */
+    public static OffHeapPDQueue[] compact(RecordArena target, OffHeapPDQueue... queues) {
+        OffHeapPDQueue[] result = new OffHeapPDQueue[queues.length];
+        if (queues.length == 0) {
+            return result;
+        }
+        RecordArena source = queues[0].arena;
+        long total = 0;
+        for (OffHeapPDQueue q : queues) {
+            if (q.arena != source) {
+                throw new IllegalArgumentException("Queues of different arenas");
+            }
+            total += q.size();
+        }
+        if (source == target || source.recordSize() != target.recordSize()) {
+            throw new IllegalArgumentException("Target arena is the source or has another record size");
+        } else if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many records: " + total);
+        }
+        // the distinct live indices in ascending order, mapped to their copies by position
+        long[] live = new long[(int) total];
+        int n = 0;
+        for (OffHeapPDQueue q : queues) {
+            PrimitiveIterator.OfLong it = q.indices.iterator();
+            while (it.hasNext()) {
+                live[n++] = it.nextLong();
+            }
+        }
+        Arrays.sort(live);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || live[i] != live[distinct - 1]) {
+                live[distinct++] = live[i];
+            }
+        }
+        long[] copies = new long[distinct];
+        for (int i = 0; i < distinct; i++) {
+            copies[i] = target.add(source.get(live[i]));
+        }
+        for (int k = 0; k < queues.length; k++) {
+            long[] indices = queues[k].indices.toArray();
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = copies[Arrays.binarySearch(live, 0, distinct, indices[i])];
+            }
+            result[k] = new OffHeapPDQueue(target, LongPDQueue.fromArray(indices, 0, indices.length));
+        }
+        return result;
+    }
+
+    /**
+     * Gives the arena storing the records
+     * @return the arena
+     */
+    public RecordArena arena() {
+        return arena;
+    }
+
+    /**
+     * Gives the indices of the records in the arena from left to right
+     * @return the indices
+     */
+    public LongPDQueue indices() {
+        return indices;
+    }
+
+    /**
+     * Gives the size of the queue, which is the number of records contained in it
+     * @return the size
+     */
+    public int size() {
+        return indices.size();
+    }
+
+    /**
+     * Checks if the queue is empty
+     * @return true if the queue is empty
+     */
+    public boolean isEmpty() {
+        return indices.isEmpty();
+    }
+
+    /**
+     * Returns a read only view of the n-th record (zero based) of the queue
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the n-th record
+     */
+    public ByteBuffer get(int n) {
+        return arena.get(indices.getLong(n));
+    }
+
+    /**
+     * Gives the left most record
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return a read only view of the left most record
+     */
+    public ByteBuffer headL() {
+        return arena.get(indices.headLLong());
+    }
+
+    /**
+     * Gives the right most record
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return a read only view of the right most record
+     */
+    public ByteBuffer headR() {
+        return arena.get(indices.headRLong());
+    }
+
+    /**
+     * Adds a record to the arena and returns a queue with it added to the left
+     * @param record the record, whose remaining bytes must be arena().recordSize()
+     * @return the new queue
+     */
+    public OffHeapPDQueue consL(ByteBuffer record) {
+        return new OffHeapPDQueue(arena, indices.consL(arena.add(record)));
+    }
+
+    /**
+     * Adds a record to the arena and returns a queue with it added to the right
+     * @param record the record, whose remaining bytes must be arena().recordSize()
+     * @return the new queue
+     */
+    public OffHeapPDQueue consR(ByteBuffer record) {
+        return new OffHeapPDQueue(arena, indices.consR(arena.add(record)));
+    }
+
+    /**
+     * Returns the queue without the left most record
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return the new queue
+     */
+    public OffHeapPDQueue tailL() {
+        return new OffHeapPDQueue(arena, indices.tailL());
+    }
+
+    /**
+     * Returns the queue without the right most record
+     * @throws java.util.NoSuchElementException if the queue is empty
+     * @return the new queue
+     */
+    public OffHeapPDQueue tailR() {
+        return new OffHeapPDQueue(arena, indices.tailR());
+    }
+
+    /**
+     * Writes the indices of the records, so that the queue can be loaded again from the arena after it has been
+     * reopened. The indices are written as differences to their predecessors, which takes one byte per record for
+     * records added in order.
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    public void store(DataOutput out) throws IOException {
+        PDQueueCodec.writeVarInt(out, indices.size());
+        long previous = -1;
+        PrimitiveIterator.OfLong it = indices.iterator();
+        while (it.hasNext()) {
+            long index = it.nextLong();
+            long delta = index - previous - 1;
+            PDQueueCodec.writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = index;
+        }
+    }
+
+    /**
+     * Loads a queue written by store. The queue is built bottom up in linear time.
+     * @param arena the arena containing the records of the queue
+     * @param in the input
+     * @return the queue
+     * @throws IOException if reading fails or the indices are not records of arena
+     */
+    public static OffHeapPDQueue load(RecordArena arena, DataInput in) throws IOException {
+        int size = PDQueueCodec.readVarInt(in);
+        if (size < 0) {
+            throw new IOException("Invalid size " + size);
+        }
+        long count = arena.count();
+        long[] indices = new long[size];
+        long previous = -1;
+        for (int i = 0; i < size; i++) {
+            long zigzag = PDQueueCodec.readVarLong(in);
+            long index = previous + 1 + ((zigzag >>> 1) ^ -(zigzag & 1));
+            if (index < 0 || index >= count) {
+                throw new IOException("Invalid record index " + index);
+            }
+            indices[i] = index;
+            previous = index;
+        }
+        return new OffHeapPDQueue(arena, LongPDQueue.fromArray(indices, 0, size));
+    }
+}
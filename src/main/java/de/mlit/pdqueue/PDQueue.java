@@ -1,9 +1,23 @@
 package de.mlit.pdqueue;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /*
  * Created by user on 4/14/17.
@@ -13,7 +27,7 @@ import java.util.function.Consumer;
  * This class represents a persistent double ended queue with elements of type E
  * @param <E> the type of the elements in the queue
  */
-public abstract class PDQueue<E> implements PDQueueFactory<E> {
+public abstract class PDQueue<E> implements PDQueueFactory<E>, PDQueueFactory.Sized, Iterable<E> {
 
     /**
      * Returns an empty queue.
@@ -46,19 +60,208 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
         return Top.INSTANCE.internalConcatenate(q1, q2);
     }
 
-    protected final int size;
+    /**
+     * Queues up to this size are copied element by element by concatAll instead of being concatenated
+     */
+    private static final int CONCAT_ALL_COPY_SIZE = 64;
 
     /**
-     * Gives the size of the queue, which is the number of elements contained in it
-     * @return the size
+     * Returns the concatenation of the queues in iteration order. Runs of small queues are copied into a builder,
+     * which packs their elements directly into nested nodes, and the remaining parts are concatenated pairwise in
+     * rounds, so the concatenations form a balanced tree instead of a left leaning chain.
+     * @param queues the queues to concatenate
+     * @param <E> the type of the elements in the queues
+     * @return the concatenation of all queues
+     */
+    public static <E> PDQueue<E> concatAll(Iterable<? extends PDQueue<E>> queues) {
+        List<PDQueue<E>> parts = new ArrayList<>();
+        Builder<E> small = null;
+        for (PDQueue<E> q : queues) {
+            if (q.size() <= CONCAT_ALL_COPY_SIZE) {
+                if (small == null) {
+                    small = builder();
+                }
+                q.forEachLtoR(small::add);
+            } else {
+                if (small != null) {
+                    parts.add(small.build());
+                    small = null;
+                }
+                parts.add(q);
+            }
+        }
+        if (small != null) {
+            parts.add(small.build());
+        }
+        if (parts.isEmpty()) {
+            return empty();
+        }
+        for (int n = parts.size(); n > 1; n = (n + 1) / 2) {
+            for (int i = 0; i < n / 2; i++) {
+                parts.set(i, concat(parts.get(2 * i), parts.get(2 * i + 1)));
+            }
+            if (n % 2 != 0) {
+                parts.set(n / 2, parts.get(n - 1));
+            }
+        }
+        return parts.get(0);
+    }
+
+    /**
+     * Returns the concatenation of the queues from left to right, see concatAll(Iterable)
+     * @param queues the queues to concatenate
+     * @param <E> the type of the elements in the queues
+     * @return the concatenation of all queues
+     */
+    @SafeVarargs
+    public static <E> PDQueue<E> concatAll(PDQueue<E>... queues) {
+        return concatAll(Arrays.asList(queues));
+    }
+
+    /**
+     * Returns the concatenation of the queues contained in a queue, see concatAll(Iterable)
+     * @param queues the queue of queues
+     * @param <E> the type of the elements in the queues
+     * @return the concatenation of all queues in queues from left to right
+     */
+    public static <E> PDQueue<E> flatten(PDQueue<PDQueue<E>> queues) {
+        return concatAll(queues);
+    }
+
+    /**
+     * Returns a queue containing the given elements from left to right
+     * @param elements the elements to be contained in the queue
+     * @param <E> the type of the elements in the queue
+     * @return the queue containing the elements
+     */
+    @SafeVarargs
+    public static <E> PDQueue<E> of(E... elements) {
+        return fromArray(elements, 0, elements.length);
+    }
+
+    /**
+     * Returns a queue containing the elements of the array from index from (inclusive) to index to (exclusive). The
+     * queue is built bottom up in linear time, packing the elements into digits level by level.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;array.length or from&gt;to
+     * @param array the array containing the elements
+     * @param from the index of the first element
+     * @param to the index after the last element
+     * @param <E> the type of the elements in the queue
+     * @return the queue containing the elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PDQueue<E> fromArray(E[] array, int from, int to) {
+        if (from < 0 || to > array.length || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+        return build(Top.INSTANCE, array, from, to, new Object[(to - from) / 3]);
+    }
+
+    /**
+     * Returns a queue containing the elements of the iterable in the order of iteration
+     * @param elements the elements to be contained in the queue
+     * @param <E> the type of the elements in the queue
+     * @return the queue containing the elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PDQueue<E> fromIterable(Iterable<? extends E> elements) {
+        if (elements instanceof PDQueue) {
+            return (PDQueue<E>) elements;
+        } else if (elements instanceof Collection) {
+            Object[] array = ((Collection<? extends E>) elements).toArray();
+            return fromArray((E[]) array, 0, array.length);
+        } else {
+            return PDQueue.<E>builder().addAll(elements).build();
+        }
+    }
+
+    /**
+     * Returns a collector, which collects the elements into a queue in encounter order. Partial results of a
+     * parallel stream are combined by concatenation.
+     * @param <E> the type of the elements in the queue
+     * @return the collector
+     */
+    public static <E> Collector<E, ?, PDQueue<E>> collector() {
+        return Collector.<E, Builder<E>, PDQueue<E>>of(PDQueue::builder, Builder::add,
+                (b1, b2) -> b1.addAll(b2.build()), Builder::build);
+    }
+
+    /**
+     * Builds the queue of nodes[from..to) with the factory f of their level. The left and right digit take two
+     * elements each (three for the left one if only one would remain), the remaining elements are packed into
+     * triples and pairs, which are written to scratch and form the elements of the middle. scratch may be the same
+     * array as nodes.
+     */
+    static PDQueue build(PDQueueFactory f, Object[] nodes, int from, int to, Object[] scratch) {
+        int n = to - from;
+        if (n <= 4) {
+            return digit(f, nodes, from, n);
+        }
+        int leftCount = n == 5 ? 3 : 2;
+        PDQueue left = digit(f, nodes, from, leftCount);
+        PDQueue right = digit(f, nodes, to - 2, 2);
+        int i = from + leftCount;
+        int end = to - 2;
+        int j = 0;
+        while (i < end) {
+            int r = end - i;
+            if (r == 2 || r == 4) {
+                scratch[j++] = f.internalPair(nodes[i], nodes[i + 1]);
+                i += 2;
+            } else {
+                scratch[j++] = f.internalTriple(nodes[i], nodes[i + 1], nodes[i + 2]);
+                i += 3;
+            }
+        }
+        return f.internalComplQ(left, build(Nest.EMPTY, scratch, 0, j, scratch), right);
+    }
+
+    static PDQueue digit(PDQueueFactory f, Object[] nodes, int from, int count) {
+        switch (count) {
+            case 0:
+                return f.internalEmpty();
+            case 1:
+                return f.internalSingleton(nodes[from]);
+            case 2:
+                return f.internalPair(nodes[from], nodes[from + 1]);
+            case 3:
+                return f.internalTriple(nodes[from], nodes[from + 1], nodes[from + 2]);
+            default:
+                return f.internalQuadruple(nodes[from], nodes[from + 1], nodes[from + 2], nodes[from + 3]);
+        }
+    }
+
+    static PDQueue complQ(PDQueueFactory f, PDQueue left, PDQueue middle, PDQueue right) {
+        return f.internalComplQ(left, middle, right);
+    }
+
+    /**
+     * Returns a builder for a queue, to which elements can be added from left to right. This is more efficient than
+     * repeated calls to consR.
+     * @param <E> the type of the elements in the queue
+     * @return an empty builder
      */
+    public static <E> Builder<E> builder() {
+        return new Builder<>(empty());
+    }
 
-    public int size() {
-        return size;
+    /**
+     * Returns a builder for a queue starting with the elements of this queue, to which further elements can be added
+     * to the right.
+     * @return a builder starting with the elements of this queue
+     */
+    public Builder<E> toBuilder() {
+        return new Builder<>(this);
     }
 
-    protected PDQueue(int size) {
-        this.size = size;
+    /**
+     * Gives the size of the queue, which is the number of elements contained in it. Digits of the top level derive it
+     * from their kind, all other nodes cache it in a field.
+     * @return the size
+     */
+    public abstract int size();
+
+    protected PDQueue() {
     }
 
 
@@ -68,16 +271,249 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
      * @param n the index
      * @return the n-th element
      */
+    @SuppressWarnings("unchecked")
     public E get(int n) {
-        return get(n, (k, k1) -> {
-            if (k1 == 0) {
-                return k;
-            } else throw new IndexOutOfBoundsException();
-        });
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return (E) leafAt(this, n, false).element;
     }
 
     public abstract <A> A get(int n, BiFunction<E, Integer, A> f);
 
+    /**
+     * Splits the queue in two at index n. The left part contains the first n elements, the right part the remaining
+     * size()-n elements. This takes logarithmic time.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;size()
+     * @param n the index to split at
+     * @return the two parts of the queue
+     */
+    public Split<E> splitAt(int n) {
+        if (n < 0 || n > size()) {
+            throw new IndexOutOfBoundsException();
+        } else if (n == 0) {
+            return new Split<>(internalEmpty(), this);
+        } else if (n == size()) {
+            return new Split<>(this, internalEmpty());
+        }
+        Cut<E> cut = cut(n);
+        return new Split<>(cut.left, cut.right.consL(cut.elem));
+    }
+
+    /**
+     * Gives the queue of the first n elements of this queue.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;size()
+     * @param n the number of elements to keep
+     * @return the queue containing the n leftmost elements
+     */
+    public PDQueue<E> take(int n) {
+        if (n < 0 || n > size()) {
+            throw new IndexOutOfBoundsException();
+        } else if (n == size()) {
+            return this;
+        } else if (n == 0) {
+            return internalEmpty();
+        }
+        return cut(n).left;
+    }
+
+    /**
+     * Gives the queue with the first n elements of this queue removed.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;size()
+     * @param n the number of elements to remove
+     * @return the queue containing all but the n leftmost elements
+     */
+    public PDQueue<E> drop(int n) {
+        if (n < 0 || n > size()) {
+            throw new IndexOutOfBoundsException();
+        } else if (n == 0) {
+            return this;
+        } else if (n == size()) {
+            return internalEmpty();
+        }
+        Cut<E> cut = cut(n);
+        return cut.right.consL(cut.elem);
+    }
+
+    /**
+     * Gives the queue with the elements added to the left, so that the first element is the left most one of the
+     * result. The elements are built into a queue of their own, which is concatenated with this queue, so each node
+     * is allocated once per batch instead of once per element.
+     * @param elements the elements to be added
+     * @return the queue with the elements added
+     */
+    public PDQueue<E> consAllL(Iterable<? extends E> elements) {
+        return concat(fromIterable(elements), this);
+    }
+
+    /**
+     * Gives the queue with the elements of the array added to the left, so that the first element is the left most
+     * one of the result, see consAllL(Iterable)
+     * @param elements the elements to be added
+     * @return the queue with the elements added
+     */
+    public PDQueue<E> consAllL(E[] elements) {
+        return concat(fromArray(elements, 0, elements.length), this);
+    }
+
+    /**
+     * Gives the queue with the elements added to the right, so that the last element is the right most one of the
+     * result. The elements are built into a queue of their own, which is concatenated with this queue, so each node
+     * is allocated once per batch instead of once per element.
+     * @param elements the elements to be added
+     * @return the queue with the elements added
+     */
+    public PDQueue<E> consAllR(Iterable<? extends E> elements) {
+        return concat(this, fromIterable(elements));
+    }
+
+    /**
+     * Gives the queue with the elements of the array added to the right, so that the last element is the right most
+     * one of the result, see consAllR(Iterable)
+     * @param elements the elements to be added
+     * @return the queue with the elements added
+     */
+    public PDQueue<E> consAllR(E[] elements) {
+        return concat(this, fromArray(elements, 0, elements.length));
+    }
+
+    /**
+     * Gives the queue without the k left most elements. This takes logarithmic time.
+     * @throws IndexOutOfBoundsException if k&lt;0 or k&gt;size()
+     * @param k the number of elements to remove
+     * @return the queue without the k left most elements
+     */
+    public PDQueue<E> dropL(int k) {
+        return drop(k);
+    }
+
+    /**
+     * Gives the queue without the k right most elements. This takes logarithmic time.
+     * @throws IndexOutOfBoundsException if k&lt;0 or k&gt;size()
+     * @param k the number of elements to remove
+     * @return the queue without the k right most elements
+     */
+    public PDQueue<E> dropR(int k) {
+        if (k < 0 || k > size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return take(size() - k);
+    }
+
+    /**
+     * Gives a queue with the n-th element replaced by e. Only the nodes on the path to the element are copied.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @param e the value to replace the n-th element with
+     * @return the queue with the n-th element replaced by e
+     */
+    public PDQueue<E> set(int n, E e) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        return adjust(n, (k, k1) -> e);
+    }
+
+    /**
+     * Gives a queue with e inserted at index n, so that e is the n-th element of the result. This takes logarithmic
+     * time.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;size()
+     * @param n the index
+     * @param e the element to be inserted
+     * @return the queue with e inserted at index n
+     */
+    public PDQueue<E> insertAt(int n, E e) {
+        if (n < 0 || n > size()) {
+            throw new IndexOutOfBoundsException();
+        } else if (n == 0) {
+            return consL(e);
+        } else if (n == size()) {
+            return consR(e);
+        }
+        Cut<E> cut = cut(n);
+        return internalConcatenate(cut.left.consR(e), cut.right.consL(cut.elem));
+    }
+
+    /**
+     * Gives a queue with the n-th element removed. This takes logarithmic time.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=size()
+     * @param n the index
+     * @return the queue with the n-th element removed
+     */
+    public PDQueue<E> removeAt(int n) {
+        if (n < 0 || n >= size()) {
+            throw new IndexOutOfBoundsException();
+        }
+        Cut<E> cut = cut(n);
+        return internalConcatenate(cut.left, cut.right);
+    }
+
+    /**
+     * Replaces the element containing index n, where the index is counted in units of internalSizeOf, by the result
+     * of f applied to the element and the index relative to the element.
+     * @param n the index, 0 &lt;= n &lt; size()
+     * @param f the function computing the new element
+     * @return the queue with the element replaced
+     */
+    abstract PDQueue<E> adjust(int n, Adjust<E> f);
+
+    /**
+     * Splits the queue around the element containing index n, where the index is counted in units of internalSizeOf.
+     * @param n the index, 0 &lt;= n &lt; size()
+     * @return the elements left of the element, the element and the elements right of it
+     */
+    abstract Cut<E> cut(int n);
+
+    /**
+     * Gives the i-th element of a queue of kind 1 to 4, or the left, middle and right part of a queue of kind 5.
+     * @param i the index of the child
+     * @return the child
+     */
+    abstract Object child(int i);
+
+    /**
+     * Not public api. Computes the polynomial hash of the elements from the hashes of the children of this node.
+     * @return the polynomial hash
+     */
+    abstract int computeHash();
+
+    /**
+     * Not public api. Gives the polynomial hash h(e0)*97^(n-1) + ... + h(en-1) of the n elements of the queue. Nodes
+     * of nested levels and nodes with left, middle and right part compute it lazily and cache it in a field, so that
+     * a new queue sharing most of its nodes with another one derives it in O(log n) from the cached hashes of the
+     * shared nodes. Digits of the top level have no field for it and compute it from their elements.
+     * @return the polynomial hash
+     */
+    int polyHash() {
+        return computeHash();
+    }
+
+    /**
+     * Not public api. Gives the cached result of polyHash(), 0 if it is not yet computed or not cached by this node
+     * @return the cached polynomial hash
+     */
+    int cachedHash() {
+        return 0;
+    }
+
+    /**
+     * Gives 97^n modulo 2^32
+     * @param n the exponent
+     * @return the power
+     */
+    static int pow97(int n) {
+        int result = 1;
+        int base = 97;
+        while (n != 0) {
+            if ((n & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+            n >>>= 1;
+        }
+        return result;
+    }
+
     protected abstract int kind();
 
     /**
@@ -177,121 +613,1141 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
     }
 
 
-    protected PDQueue<E> prepareConsL() {
-        return this;
-    }
+    protected PDQueue<E> prepareConsL() {
+        return this;
+    }
+
+    protected PDQueue<E> prepareConsR() {
+        return this;
+    }
+
+    protected PDQueue<E> prepareTailL() {
+        return this;
+    }
+
+    protected PDQueue<E> prepareTailR() {
+        return this;
+    }
+
+    /**
+     * Not public api. Gives the digit of the first two elements of a queue of kind 4
+     * @return the left pair
+     */
+    @SuppressWarnings("unchecked")
+    PDQueue<E> leftPair() {
+        return internalPair((E) child(0), (E) child(1));
+    }
+
+    /**
+     * Not public api. Gives the digit of the last two elements of a queue of kind 4
+     * @return the right pair
+     */
+    @SuppressWarnings("unchecked")
+    PDQueue<E> rightPair() {
+        return internalPair((E) child(2), (E) child(3));
+    }
+
+    /**
+     * Gives the hash code 47*97^n + h(e0)*97^(n-1) + ... + h(en-1) of the n elements of the queue. It is cached per
+     * node and derived from the hashes of shared nodes, so it is cheap for queues built from other queues whose hash
+     * code is already known.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return 47 * pow97(size()) + polyHash();
+    }
+
+    /**
+     * Compares the queue to another one element by element. Nodes shared by both queues at the same position are
+     * skipped, and two nodes of the same size at the same position with different cached hashes make the queues
+     * unequal without comparing their elements.
+     * @param obj the object to compare to
+     * @return true if obj is a queue with equal elements in the same order
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof PDQueue)) {
+            return false;
+        } else if(obj == this) {
+            return true;
+        }
+        PDQueue<?> other = (PDQueue<?>)obj;
+        if(this.size() != other.size()) {
+            return false;
+        } else if (this.kind() < 0 || other.kind() < 0) {
+            // reversed views have no nodes to compare
+            Iterator<?> it1 = this.iterator();
+            Iterator<?> it2 = other.iterator();
+            while (it1.hasNext()) {
+                Object o1 = it1.next();
+                Object o2 = it2.next();
+                if (!(o1 == null ? o2 == null : o1.equals(o2))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        PDQueueIterator<?> it1 = new PDQueueIterator<>(this, false);
+        PDQueueIterator<?> it2 = new PDQueueIterator<>(other, false);
+        int remaining = size();
+        while (remaining > 0) {
+            Object n1 = it1.nodes[it1.top - 1];
+            Object n2 = it2.nodes[it2.top - 1];
+            int l1 = it1.levels[it1.top - 1];
+            int l2 = it2.levels[it2.top - 1];
+            if (l1 == PDQueueIterator.ELEMENT && l2 == PDQueueIterator.ELEMENT) {
+                it1.advance();
+                it2.advance();
+                if (!(n1 == null ? n2 == null : n1.equals(n2))) {
+                    return false;
+                }
+                remaining--;
+            } else if (l1 == PDQueueIterator.ELEMENT) {
+                it2.expand();
+            } else if (l2 == PDQueueIterator.ELEMENT) {
+                it1.expand();
+            } else {
+                PDQueue<?> q1 = (PDQueue<?>) n1;
+                PDQueue<?> q2 = (PDQueue<?>) n2;
+                int s1 = q1.size();
+                int s2 = q2.size();
+                if (s1 == s2) {
+                    if (q1 == q2) {
+                        it1.nodes[--it1.top] = null;
+                        it2.nodes[--it2.top] = null;
+                        remaining -= s1;
+                        continue;
+                    } else if (q1.cachedHash() != 0 && q2.cachedHash() != 0 && q1.cachedHash() != q2.cachedHash()) {
+                        return false;
+                    }
+                }
+                if (s1 >= s2) {
+                    it1.expand();
+                } else {
+                    it2.expand();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives an iterator over the elements of the queue from left to right
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new PDQueueIterator<>(this, false);
+    }
+
+    /**
+     * Gives a view of the queue with the elements in reverse order. This takes constant time: the view swaps left and
+     * right of all operations on the underlying queue. Reversing the view gives the underlying queue again.
+     * Concatenating a reversed view with another queue or view takes logarithmic time as well: it flips only the spine
+     * of the underlying queue, whose digits keep their children and reverse them once they are reached.
+     * @return the queue in reverse order
+     */
+    public PDQueue<E> reversed() {
+        return isEmpty() ? this : new Reversed<>(this);
+    }
+
+    /**
+     * Gives an iterator over the elements of the queue from right to left
+     * @return the iterator
+     */
+    public Iterator<E> descendingIterator() {
+        return new PDQueueIterator<>(this, true);
+    }
+
+    /**
+     * Gives a spliterator over the elements of the queue from left to right. The spliterator splits along the
+     * structure of the queue into halves of equal size.
+     * @return the spliterator
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new PDQueueSpliterator<>(this);
+    }
+
+    /**
+     * Gives a spliterator over the elements from index from (inclusive) to index to (exclusive) from left to right.
+     * The spliterator descends to from using the sizes of the nodes, so this takes logarithmic time, and iterating
+     * over the k elements of the range takes O(k).
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;size() or from&gt;to
+     * @param from the index of the first element
+     * @param to the index after the last element
+     * @return the spliterator
+     */
+    public Spliterator<E> spliterator(int from, int to) {
+        return rangeSpliterator(from, to, false);
+    }
+
+    /**
+     * Calls accept on the consumer for each element from index from (inclusive) to index to (exclusive) from left to
+     * right. This takes O(log n + k) for k elements in the range.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;size() or from&gt;to
+     * @param from the index of the first element
+     * @param to the index after the last element
+     * @param consumer the consumer
+     */
+    public void forEachInRange(int from, int to, Consumer<? super E> consumer) {
+        rangeSpliterator(from, to, false).forEachRemaining(consumer);
+    }
+
+    /**
+     * Calls accept on the consumer for each element from index to-1 down to index from. This takes O(log n + k) for k
+     * elements in the range.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;size() or from&gt;to
+     * @param from the index of the last element visited
+     * @param to the index after the first element visited
+     * @param consumer the consumer
+     */
+    public void forEachInRangeRtoL(int from, int to, Consumer<? super E> consumer) {
+        rangeSpliterator(from, to, true).forEachRemaining(consumer);
+    }
+
+    /**
+     * Not public api. Gives a spliterator, which is also an iterator, over the elements from index from to index to,
+     * from right to left if reverse is set.
+     */
+    PDQueueSpliterator<E> rangeSpliterator(int from, int to, boolean reverse) {
+        checkRange(from, to);
+        return new PDQueueSpliterator<>(this, reverse, from, to);
+    }
+
+    final void checkRange(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * Gives a sequential stream of the elements of the queue from left to right
+     * @return the stream
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Gives a parallel stream of the elements of the queue from left to right
+     * @return the stream
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Gives a read only List view of the queue. Nothing is copied: get takes logarithmic time, size constant time,
+     * iteration walks the structure of the queue, and subList gives a view of the same queue again. Equality and hash
+     * code of the view follow the List contract.
+     * @return the list view
+     */
+    public List<E> asList() {
+        return new PDQueueList<>(this);
+    }
+
+    /**
+     * Gives a read only Deque view of the queue. Inspecting operations take constant time, all operations which would
+     * modify the deque throw UnsupportedOperationException.
+     * @return the deque view
+     */
+    public Deque<E> asDeque() {
+        return new PDQueueDeque<>(this);
+    }
+
+    /**
+     * Returns the queue of the results of f applied to the elements of this queue. The result is built node for node
+     * and has exactly the shape of this queue, so no rebalancing takes place.
+     * @param f the function
+     * @param <R> the type of the elements of the result
+     * @return the mapped queue
+     */
+    @SuppressWarnings("unchecked")
+    public <R> PDQueue<R> map(Function<? super E, ? extends R> f) {
+        return (PDQueue<R>) PDQueueMap.map(this, 0, (Function<Object, ?>) f);
+    }
+
+    /**
+     * Same as map, but the nodes are mapped in parallel on the common ForkJoinPool, forking tasks for the left,
+     * middle and right part of each node down to nodes of a few thousand elements.
+     * @param f the function, which must be safe to call from several threads
+     * @param <R> the type of the elements of the result
+     * @return the mapped queue
+     */
+    @SuppressWarnings("unchecked")
+    public <R> PDQueue<R> parallelMap(Function<? super E, ? extends R> f) {
+        return (PDQueue<R>) ForkJoinPool.commonPool().invoke(new PDQueueMap.Task(this, 0, (Function<Object, ?>) f));
+    }
+
+    /**
+     * Returns the queue of the elements of this queue satisfying the predicate, in the same order
+     * @param p the predicate
+     * @return the filtered queue
+     */
+    public PDQueue<E> filter(Predicate<? super E> p) {
+        Builder<E> builder = builder();
+        forEachLtoR(e -> {
+            if (p.test(e)) {
+                builder.add(e);
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Same as filter, but the parts of the queue are filtered in parallel and the results are concatenated
+     * @param p the predicate, which must be safe to call from several threads
+     * @return the filtered queue
+     */
+    public PDQueue<E> parallelFilter(Predicate<? super E> p) {
+        return parallelStream().filter(p).collect(collector());
+    }
+
+    /**
+     * Returns the queue of the elements of the results of f applied to the elements of this queue, in order
+     * @param f the function
+     * @param <R> the type of the elements of the result
+     * @return the concatenation of the results
+     */
+    public <R> PDQueue<R> flatMap(Function<? super E, ? extends Iterable<? extends R>> f) {
+        Builder<R> builder = builder();
+        forEachLtoR(e -> builder.addAll(f.apply(e)));
+        return builder.build();
+    }
+
+    /**
+     * Same as flatMap, but the parts of the queue are processed in parallel and the results are concatenated
+     * @param f the function, which must be safe to call from several threads
+     * @param <R> the type of the elements of the result
+     * @return the concatenation of the results
+     */
+    public <R> PDQueue<R> parallelFlatMap(Function<? super E, ? extends Iterable<? extends R>> f) {
+        return parallelStream().<R>flatMap(e -> StreamSupport.stream(f.apply(e).spliterator(), false))
+                .collect(PDQueue.<R>collector());
+    }
+
+    /**
+     * Combines the elements from left to right, starting with initial
+     * @param initial the initial value
+     * @param f combines the value so far with the next element
+     * @param <A> the type of the value
+     * @return f(...f(f(initial, e0), e1)..., en-1)
+     */
+    public <A> A foldLeft(A initial, BiFunction<A, ? super E, A> f) {
+        A a = initial;
+        for (Iterator<E> it = iterator(); it.hasNext(); ) {
+            a = f.apply(a, it.next());
+        }
+        return a;
+    }
+
+    /**
+     * Combines the elements from right to left, starting with initial
+     * @param initial the initial value
+     * @param f combines the next element with the value so far
+     * @param <A> the type of the value
+     * @return f(e0, f(e1, ...f(en-1, initial)...))
+     */
+    public <A> A foldRight(A initial, BiFunction<? super E, A, A> f) {
+        A a = initial;
+        for (Iterator<E> it = descendingIterator(); it.hasNext(); ) {
+            a = f.apply(it.next(), a);
+        }
+        return a;
+    }
+
+    /**
+     * Combines the elements from left to right with an associative operation
+     * @param identity the identity of op
+     * @param op the operation
+     * @return the combination of identity and all elements
+     */
+    public E reduce(E identity, BinaryOperator<E> op) {
+        return foldLeft(identity, op);
+    }
+
+    /**
+     * Same as reduce, but the parts of the queue are reduced in parallel and the results are combined
+     * @param identity the identity of op
+     * @param op the associative operation, which must be safe to call from several threads
+     * @return the combination of identity and all elements
+     */
+    public E parallelReduce(E identity, BinaryOperator<E> op) {
+        return parallelStream().reduce(identity, op);
+    }
+
+    /**
+     * Calls accept on the consumer for each element in the queue from left to right
+     * @param consumer
+     */
+    public abstract void forEachLtoR(Consumer<E> consumer);
+
+    /**
+     * Calls consumer for each element in the queue from left to right
+     * @param consumer
+     */
+    public abstract void forEachRtoL(Consumer<E> consumer);
+
+    /**
+     * returns the elements of the queue as array. If argument array is big enough, the elements are copied
+     * to this array, otherwise a new array is created.
+     * @param array
+     * @return an array containing all elements of the queue
+     */
+    public E[] toArray(E[] array) {
+        E[] result = createSizedArray(array);
+        int i = 0;
+        for (E e : this) {
+            result[i++] = e;
+        }
+        return result;
+    }
+
+    /**
+     * returns the elements of the queue as array in reverse order. If argument array is big enough, the elements are copied
+     * to this array, otherwise a new array is created.
+     * @param array
+     * @return an array containing all elements of the queue in reverse order
+     */
+    public E[] toArrayReverse(E[] array) {
+        E[] result = createSizedArray(array);
+        Iterator<E> it = descendingIterator();
+        for (int i = 0; it.hasNext(); i++) {
+            result[i] = it.next();
+        }
+        return result;
+    }
+
+    private E[] createSizedArray(E[] array) {
+        E[] result;
+        if(array.length>=size()) {
+            result = array;
+        } else {
+            result = (E[]) Array.newInstance(array.getClass().getComponentType(), size());
+        }
+        return result;
+    }
+
+    /**
+     * The result of splitting a queue in two.
+     * @param <E> the type of the elements in the queue
+     */
+    public static final class Split<E> {
+        private final PDQueue<E> left;
+        private final PDQueue<E> right;
+
+        Split(PDQueue<E> left, PDQueue<E> right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Gives the left part of the split queue
+         * @return the left part
+         */
+        public PDQueue<E> left() {
+            return left;
+        }
+
+        /**
+         * Gives the right part of the split queue
+         * @return the right part
+         */
+        public PDQueue<E> right() {
+            return right;
+        }
+    }
+
+    /**
+     * Builds a queue by adding elements to the right. The builder keeps a small buffer of elements per nesting
+     * level. Whenever a buffer is full, three of its elements are packed into a digit, which is added to the buffer
+     * of the next level. So each digit is allocated only once, and building a queue of n elements takes O(n) time.
+     * The builder is not thread safe, but it can be used further after build() has been called.
+     * @param <E> the type of the elements in the queue
+     */
+    public static final class Builder<E> {
+        private PDQueue<E> prefix;
+        private Object[][] buffers = new Object[4][];
+        private int[] counts = new int[4];
+        private int depth;
+
+        Builder(PDQueue<E> prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Adds the element e to the right of the queue being built
+         * @param e the element to be added
+         * @return this builder
+         */
+        @SuppressWarnings("unchecked")
+        public Builder<E> add(E e) {
+            Object node = e;
+            for (int level = 0; ; level++) {
+                if (level == depth) {
+                    if (depth == buffers.length) {
+                        buffers = Arrays.copyOf(buffers, depth * 2);
+                        counts = Arrays.copyOf(counts, depth * 2);
+                    }
+                    buffers[depth] = new Object[5];
+                    depth++;
+                }
+                Object[] buffer = buffers[level];
+                buffer[counts[level]++] = node;
+                if (counts[level] < 5) {
+                    return this;
+                }
+                node = factory(level).internalTriple(buffer[0], buffer[1], buffer[2]);
+                buffer[0] = buffer[3];
+                buffer[1] = buffer[4];
+                buffer[2] = buffer[3] = buffer[4] = null;
+                counts[level] = 2;
+            }
+        }
+
+        /**
+         * Adds all elements to the right of the queue being built
+         * @param elements the elements to be added
+         * @return this builder
+         */
+        public Builder<E> addAll(Iterable<? extends E> elements) {
+            for (E e : elements) {
+                add(e);
+            }
+            return this;
+        }
+
+        /**
+         * Appends the queue q to the right of the queue being built. This takes logarithmic time.
+         * @param q the queue to be appended
+         * @return this builder
+         */
+        public Builder<E> addAll(PDQueue<E> q) {
+            prefix = concat(build(), q);
+            for (int level = 0; level < depth; level++) {
+                Arrays.fill(buffers[level], null);
+                counts[level] = 0;
+            }
+            depth = 0;
+            return this;
+        }
+
+        /**
+         * Gives the queue of all elements added so far
+         * @return the queue
+         */
+        @SuppressWarnings("unchecked")
+        public PDQueue<E> build() {
+            if (depth == 0) {
+                return prefix;
+            }
+            PDQueue q = digit(depth - 1);
+            for (int level = depth - 2; level >= 0; level--) {
+                q = factory(level).internalComplQ((PDQueue) q.headL(), q.tailL(), digit(level));
+            }
+            return prefix.isEmpty() ? q : concat(prefix, q);
+        }
+
+        private PDQueue digit(int level) {
+            return PDQueue.digit(factory(level), buffers[level], 0, counts[level]);
+        }
+
+        static PDQueueFactory factory(int level) {
+            return level == 0 ? Top.INSTANCE : Nest.EMPTY;
+        }
+    }
+
+    interface Adjust<E> {
+        E apply(E e, int n);
+    }
+
+    /**
+     * Not public api. Descends iteratively from q, which has level 0, to the element of level 0 covering index n. The
+     * elements of a node of level l+1 are nodes of level l. If weighted, the elements of level 0 are sized and cover
+     * as many indices as their size, otherwise each of them covers one index.
+     * @return the element and the index n relative to its start
+     */
+    static Leaf leafAt(PDQueue<?> q, int n, boolean weighted) {
+        int level = 0;
+        while (true) {
+            if (q.kind() == 5) {
+                DQn<?> dq = (DQn<?>) q;
+                int m0 = dq.left.size();
+                int m1 = dq.middle.size() + m0;
+                if (n < m0) {
+                    q = dq.left;
+                } else if (n < m1) {
+                    q = dq.middle;
+                    n -= m0;
+                    level++;
+                } else {
+                    q = dq.right;
+                    n -= m1;
+                }
+            } else if (level == 0 && !weighted) {
+                return new Leaf(q.child(n), 0);
+            } else {
+                for (int i = 0; ; i++) {
+                    Object c = q.child(i);
+                    int m = ((Sized) c).size();
+                    if (n < m) {
+                        if (level == 0) {
+                            return new Leaf(c, n);
+                        }
+                        q = (PDQueue<?>) c;
+                        level--;
+                        break;
+                    }
+                    n -= m;
+                }
+            }
+        }
+    }
+
+    static final class Leaf {
+        final Object element;
+        final int offset;
+
+        Leaf(Object element, int offset) {
+            this.element = element;
+            this.offset = offset;
+        }
+    }
+
+    static final class Cut<E> {
+        final PDQueue<E> left;
+        final E elem;
+        final PDQueue<E> right;
+
+        Cut(PDQueue<E> left, E elem, PDQueue<E> right) {
+            this.left = left;
+            this.elem = elem;
+            this.right = right;
+        }
+    }
+
+    /**
+     * View of a queue in reverse order, see reversed(). Its kind is -1, so internalConcatenate hands concatenations
+     * with a view to appendLTo and appendRTo of the view. Where nodes are needed, the view opens to a queue of its
+     * own, see open().
+     */
+    static final class Reversed<E> extends PDQueue<E> implements Top<E> {
+        final PDQueue<E> q;
+        int hash;
+        PDQueue<E> opened;
+
+        Reversed(PDQueue<E> q) {
+            this.q = q;
+        }
+
+        @Override
+        public int size() {
+            return q.size();
+        }
+
+        @Override
+        int polyHash() {
+            int h = hash;
+            if (h == 0) {
+                h = computeHash();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        int cachedHash() {
+            return hash;
+        }
+
+        /**
+         * Gives a queue with the elements of q in reverse order, which consists of nodes. The spine of q is flipped in
+         * O(log n): a queue with left, middle and right part becomes one with the reversed right, the flipped middle
+         * and the reversed left part, and the children of reversed digits of nested levels are wrapped into
+         * ReversedNode, so the nodes below the spine are reversed only once an operation reaches them. Queues of
+         * other factories than Top are copied. The result is cached.
+         * @return the reversed queue
+         */
+        PDQueue<E> open() {
+            PDQueue<E> o = opened;
+            if (o == null) {
+                o = q instanceof Top || q instanceof ReversedNode ? flip(q) : reverseCopy(q);
+                opened = o;
+            }
+            return o;
+        }
+
+        /**
+         * Gives q in reverse order, sharing the children of its digits wrapped into ReversedNode
+         */
+        static <E> PDQueue<E> flip(PDQueue<E> q) {
+            int k = q.kind();
+            if (k == 0) {
+                return q;
+            } else if (k < 5) {
+                return flipDigit(q);
+            }
+            DQn<E> dq = (DQn<E>) q;
+            return dq.internalComplQ(flipDigit(dq.right), flip(dq.middle), flipDigit(dq.left));
+        }
+
+        /**
+         * Gives the digit d in reverse order, built by the factory of d
+         */
+        @SuppressWarnings("unchecked")
+        static <E> PDQueue<E> flipDigit(PDQueue<E> d) {
+            if (d instanceof ReversedNode) {
+                return ((ReversedNode<E>) d).q;
+            }
+            int k = d.kind();
+            Object[] children = new Object[k];
+            for (int i = 0; i < k; i++) {
+                children[k - 1 - i] = ReversedNode.reverseChild(d, d.child(i));
+            }
+            return digit(d, children, 0, k);
+        }
+
+        /**
+         * Gives a new queue with the elements of q in reverse order
+         */
+        static <E> PDQueue<E> reverseCopy(PDQueue<E> q) {
+            Builder<E> builder = builder();
+            for (Iterator<E> it = q.descendingIterator(); it.hasNext(); ) {
+                builder.add(it.next());
+            }
+            return builder.build();
+        }
+
+        /**
+         * Concatenates x and y, at least one of which is a reversed view
+         */
+        static <E> PDQueue<E> concatReversed(PDQueue<E> x, PDQueue<E> y) {
+            if (x.isEmpty()) {
+                return y;
+            } else if (y.isEmpty()) {
+                return x;
+            } else if (x.kind() < 0 && y.kind() < 0) {
+                return PDQueue.concat(((Reversed<E>) y).q, ((Reversed<E>) x).q).reversed();
+            } else if (x.kind() < 0) {
+                return PDQueue.concat(((Reversed<E>) x).open(), y);
+            } else {
+                return PDQueue.concat(x, ((Reversed<E>) y).open());
+            }
+        }
+
+        @Override
+        public PDQueue<E> reversed() {
+            return q;
+        }
+
+        @Override
+        protected int kind() {
+            return -1;
+        }
+
+        @Override
+        public E get(int n) {
+            return q.get(size() - 1 - n);
+        }
+
+        @Override
+        public <A> A get(int n, BiFunction<E, Integer, A> f) {
+            return f.apply(get(n), 0);
+        }
+
+        @Override
+        public Split<E> splitAt(int n) {
+            Split<E> split = q.splitAt(size() - n);
+            return new Split<>(split.right().reversed(), split.left().reversed());
+        }
+
+        @Override
+        public PDQueue<E> take(int n) {
+            return q.drop(size() - n).reversed();
+        }
+
+        @Override
+        public PDQueue<E> drop(int n) {
+            return q.take(size() - n).reversed();
+        }
+
+        @Override
+        public PDQueue<E> set(int n, E e) {
+            return q.set(size() - 1 - n, e).reversed();
+        }
+
+        @Override
+        public PDQueue<E> insertAt(int n, E e) {
+            return q.insertAt(size() - n, e).reversed();
+        }
+
+        @Override
+        public PDQueue<E> removeAt(int n) {
+            return q.removeAt(size() - 1 - n).reversed();
+        }
+
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            return q.adjust(size() - 1 - n, f).reversed();
+        }
+
+        @Override
+        Cut<E> cut(int n) {
+            Cut<E> cut = q.cut(size() - 1 - n);
+            return new Cut<>(cut.right.reversed(), cut.elem, cut.left.reversed());
+        }
+
+        /**
+         * Gives the i-th child of the opened queue, see open()
+         */
+        @Override
+        Object child(int i) {
+            return open().child(i);
+        }
+
+        @Override
+        int computeHash() {
+            int h = 0;
+            for (Iterator<E> it = q.descendingIterator(); it.hasNext(); ) {
+                E e = it.next();
+                h = h * 97 + (e == null ? 0 : e.hashCode());
+            }
+            return h;
+        }
+
+        @Override
+        public E headL() {
+            return q.headR();
+        }
+
+        @Override
+        public E headR() {
+            return q.headL();
+        }
+
+        @Override
+        public PDQueue<E> consL(E e) {
+            return q.consR(e).reversed();
+        }
+
+        @Override
+        public PDQueue<E> consR(E e) {
+            return q.consL(e).reversed();
+        }
+
+        @Override
+        public PDQueue<E> consConsL(E ee, E e) {
+            return q.consConsR(e, ee).reversed();
+        }
+
+        @Override
+        public PDQueue<E> consConsR(E e, E ee) {
+            return q.consConsL(ee, e).reversed();
+        }
+
+        @Override
+        public PDQueue<E> tailL() {
+            return q.tailR().reversed();
+        }
+
+        @Override
+        public PDQueue<E> tailR() {
+            return q.tailL().reversed();
+        }
+
+        @Override
+        public PDQueue<E> appendLTo(PDQueue<E> other) {
+            return concatReversed(this, other);
+        }
+
+        @Override
+        public PDQueue<E> appendRTo(PDQueue<E> other) {
+            return concatReversed(other, this);
+        }
+
+        @Override
+        public PDQueue<E> replaceL(E e) {
+            return q.replaceR(e).reversed();
+        }
+
+        @Override
+        public PDQueue<E> replaceR(E e) {
+            return q.replaceL(e).reversed();
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return q.descendingIterator();
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return q.iterator();
+        }
+
+        @Override
+        public Spliterator<E> spliterator() {
+            return new PDQueueSpliterator<>(q, true, false);
+        }
+
+        @Override
+        PDQueueSpliterator<E> rangeSpliterator(int from, int to, boolean reverse) {
+            checkRange(from, to);
+            return q.rangeSpliterator(size() - to, size() - from, !reverse);
+        }
+
+        @Override
+        public <R> PDQueue<R> map(Function<? super E, ? extends R> f) {
+            return q.<R>map(f).reversed();
+        }
+
+        @Override
+        public <R> PDQueue<R> parallelMap(Function<? super E, ? extends R> f) {
+            return q.<R>parallelMap(f).reversed();
+        }
+
+        @Override
+        public void forEachLtoR(Consumer<E> consumer) {
+            q.forEachRtoL(consumer);
+        }
+
+        @Override
+        public void forEachRtoL(Consumer<E> consumer) {
+            q.forEachLtoR(consumer);
+        }
+    }
+
+    /**
+     * Node with the elements of the digit q in reverse order, each of them reversed in turn if q is a digit of a
+     * nested level. It has the kind of q and is the factory of the level of q, so it takes the place of a digit
+     * anywhere. Operations building new nodes materialize it with reversed children first, see Reversed.flipDigit.
+     */
+    static final class ReversedNode<E> extends PDQueue<E> {
+        final PDQueue<E> q;
+        int hash;
+
+        ReversedNode(PDQueue<E> q) {
+            this.q = q;
+        }
+
+        /**
+         * Gives the child of parent in reverse order, which is the child itself if it is an element of the top level
+         */
+        static Object reverseChild(PDQueue<?> parent, Object child) {
+            if (!(parent instanceof Nest)) {
+                return child;
+            } else if (child instanceof ReversedNode) {
+                return ((ReversedNode<?>) child).q;
+            } else {
+                return new ReversedNode<>((PDQueue<?>) child);
+            }
+        }
+
+        PDQueue<E> open() {
+            return Reversed.flipDigit(q);
+        }
+
+        @Override
+        public int size() {
+            return q.size();
+        }
+
+        @Override
+        protected int kind() {
+            return q.kind();
+        }
+
+        @Override
+        int polyHash() {
+            int h = hash;
+            if (h == 0) {
+                h = computeHash();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        int cachedHash() {
+            return hash;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        int computeHash() {
+            int h = 0;
+            for (int i = 0; i < kind(); i++) {
+                E e = (E) child(i);
+                h = h * pow97(internalSizeOf(e)) + internalHashOf(e);
+            }
+            return h;
+        }
+
+        @Override
+        Object child(int i) {
+            return reverseChild(q, q.child(q.kind() - 1 - i));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <A> A get(int n, BiFunction<E, Integer, A> f) {
+            int last = kind() - 1;
+            for (int i = 0; i < last; i++) {
+                E e = (E) child(i);
+                int m = internalSizeOf(e);
+                if (n < m) {
+                    return f.apply(e, n);
+                }
+                n -= m;
+            }
+            return f.apply((E) child(last), n);
+        }
+
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            return open().adjust(n, f);
+        }
+
+        @Override
+        Cut<E> cut(int n) {
+            return open().cut(n);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E headL() {
+            return (E) reverseChild(q, q.headR());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E headR() {
+            return (E) reverseChild(q, q.headL());
+        }
+
+        @Override
+        public PDQueue<E> consL(E e) {
+            return open().consL(e);
+        }
+
+        @Override
+        public PDQueue<E> consR(E e) {
+            return open().consR(e);
+        }
+
+        @Override
+        public PDQueue<E> consConsL(E ee, E e) {
+            return open().consConsL(ee, e);
+        }
+
+        @Override
+        public PDQueue<E> consConsR(E e, E ee) {
+            return open().consConsR(e, ee);
+        }
+
+        @Override
+        public PDQueue<E> tailL() {
+            return open().tailL();
+        }
 
-    protected PDQueue<E> prepareConsR() {
-        return this;
-    }
+        @Override
+        public PDQueue<E> tailR() {
+            return open().tailR();
+        }
 
-    protected PDQueue<E> prepareTailL() {
-        return this;
-    }
+        @Override
+        public PDQueue<E> appendLTo(PDQueue<E> other) {
+            return open().appendLTo(other);
+        }
 
-    protected PDQueue<E> prepareTailR() {
-        return this;
-    }
+        @Override
+        public PDQueue<E> appendRTo(PDQueue<E> other) {
+            return open().appendRTo(other);
+        }
 
-    @Override
-    public int hashCode() {
-        int result = 47;
-        PDQueue<E> q = this;
-        while(q.size()>0) {
-            Object o = q.headL();
-            result = result * 97 + (o==null ? 0 : o.hashCode());
-            q=q.tailL();
+        @Override
+        public PDQueue<E> replaceL(E e) {
+            return open().replaceL(e);
         }
-        return result;
-    }
 
-    @Override
-    public boolean equals(Object obj) {
-        if(!(obj instanceof PDQueue)) {
-            return false;
-        } else if(obj == this) {
-            return true;
+        @Override
+        public PDQueue<E> replaceR(E e) {
+            return open().replaceR(e);
         }
-        PDQueue other = (PDQueue)obj;
-        if(this.size() != other.size()) {
-            return false;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachLtoR(Consumer<E> consumer) {
+            for (int i = 0; i < kind(); i++) {
+                consumer.accept((E) child(i));
+            }
         }
-        PDQueue self = this;
-        while(self.size() > 0) {
-            Object o1 = self.headL();
-            Object o2 = other.headL();
-            if(!(o1 == null ? o2 == null : o1.equals(o2))) {
-                return false;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRtoL(Consumer<E> consumer) {
+            for (int i = kind() - 1; i >= 0; i--) {
+                consumer.accept((E) child(i));
             }
-            self = self.tailL();
-            other = other.tailL();
         }
-        return true;
-    }
 
-    /**
-     * Calls accept on the consumer for each element in the queue from left to right
-     * @param consumer
-     */
-    public abstract void forEachLtoR(Consumer<E> consumer);
+        @Override
+        public PDQueue<E> internalEmpty() {
+            return q.internalEmpty();
+        }
 
-    /**
-     * Calls consumer for each element in the queue from left to right
-     * @param consumer
-     */
-    public abstract void forEachRtoL(Consumer<E> consumer);
+        @Override
+        public PDQueue<E> internalSingleton(E e0) {
+            return q.internalSingleton(e0);
+        }
 
-    /**
-     * returns the elements of the queue as array. If argument array is big enough, the elements are copied
-     * to this array, otherwise a new array is created.
-     * @param array
-     * @return an array containing all elements of the queue
-     */
-    public E[] toArray(E[] array) {
-        E[] result = createSizedArray(array);
-        forEachLtoR(new Consumer<E>() {
-            private int i = 0;
-            @Override
-            public void accept(E e) {
-                result[i++] = e;
-            }
-        });
-        return result;
-    }
+        @Override
+        public PDQueue<E> internalPair(E e0, E e1) {
+            return q.internalPair(e0, e1);
+        }
 
-    /**
-     * returns the elements of the queue as array in reverse order. If argument array is big enough, the elements are copied
-     * to this array, otherwise a new array is created.
-     * @param array
-     * @return an array containing all elements of the queue in reverse order
-     */
-    public E[] toArrayReverse(E[] array) {
-        E[] result = createSizedArray(array);
-        forEachRtoL(new Consumer<E>() {
-            private int i = 0;
-            @Override
-            public void accept(E e) {
-                result[i++] = e;
-            }
-        });
-        return result;
-    }
+        @Override
+        public PDQueue<E> internalTriple(E e0, E e1, E e2) {
+            return q.internalTriple(e0, e1, e2);
+        }
 
-    private E[] createSizedArray(E[] array) {
-        E[] result;
-        if(array.length>=size()) {
-            result = array;
-        } else {
-            result = (E[]) Array.newInstance(array.getClass().getComponentType(), size());
+        @Override
+        public PDQueue<E> internalQuadruple(E e0, E e1, E e2, E e3) {
+            return q.internalQuadruple(e0, e1, e2, e3);
+        }
+
+        @Override
+        public PDQueue<E> internalComplQ(PDQueue<E> left, PDQueue<PDQueue<E>> middle, PDQueue<E> right) {
+            return q.internalComplQ(left, middle, right);
+        }
+
+        @Override
+        public PDQueue<E> internalComplQ(PDQueue<E> left, PDQueue<E> right) {
+            return q.internalComplQ(left, right);
+        }
+
+        @Override
+        public int internalSizeOf(E e) {
+            return q.internalSizeOf(e);
+        }
+
+        @Override
+        public int internalHashOf(E e) {
+            return q.internalHashOf(e);
         }
-        return result;
     }
 
 
     abstract static class DQ0<E> extends PDQueue<E> implements PDQueueFactory<E> {
 
         protected DQ0() {
-            super(0);
+        }
+
+        @Override
+        public int size() {
+            return 0;
         }
 
         protected int kind() {
@@ -362,6 +1818,26 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
             throw new IndexOutOfBoundsException();
         }
 
+        @Override
+        Cut<E> cut(int n) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        Object child(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        int computeHash() {
+            return 0;
+        }
+
         @Override
         public void forEachLtoR(Consumer<E> cons) {
         }
@@ -374,8 +1850,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
     abstract static class DQ1<E> extends PDQueue<E> implements PDQueueFactory<E> {
         private final E e0;
 
-        DQ1(int size, E e0) {
-            super(size);
+        DQ1(E e0) {
             this.e0 = e0;
         }
 
@@ -442,6 +1917,26 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
             return f.apply(e0, n);
         }
 
+        @Override
+        Cut<E> cut(int n) {
+            return new Cut<>(internalEmpty(), e0, internalEmpty());
+        }
+
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            return internalSingleton(f.apply(e0, n));
+        }
+
+        @Override
+        Object child(int i) {
+            return e0;
+        }
+
+        @Override
+        int computeHash() {
+            return internalHashOf(e0);
+        }
+
         @Override
         public void forEachLtoR(Consumer<E> consumer) {
             consumer.accept(e0);
@@ -456,8 +1951,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
     abstract static class DQ2<E> extends PDQueue<E> implements PDQueueFactory<E> {
         private final E e0, e1;
 
-        DQ2(int size, E e0, E e1) {
-            super(size);
+        DQ2(E e0, E e1) {
             this.e0 = e0;
             this.e1 = e1;
         }
@@ -526,6 +2020,31 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
             return n < m ? f.apply(e0, n) : f.apply(e1, n - m);
         }
 
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            int m = internalSizeOf(e0);
+            return n < m ? internalPair(f.apply(e0, n), e1) : internalPair(e0, f.apply(e1, n - m));
+        }
+
+        @Override
+        Cut<E> cut(int n) {
+            if (n < internalSizeOf(e0)) {
+                return new Cut<>(internalEmpty(), e0, internalSingleton(e1));
+            } else {
+                return new Cut<>(internalSingleton(e0), e1, internalEmpty());
+            }
+        }
+
+        @Override
+        Object child(int i) {
+            return i == 0 ? e0 : e1;
+        }
+
+        @Override
+        int computeHash() {
+            return internalHashOf(e0) * pow97(internalSizeOf(e1)) + internalHashOf(e1);
+        }
+
         @Override
         public void forEachLtoR(Consumer<E> consumer) {
             consumer.accept(e0);
@@ -542,8 +2061,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
     abstract static class DQ3<E> extends PDQueue<E> implements PDQueueFactory<E> {
         private final E e0, e1, e2;
 
-        DQ3(int size, E e0, E e1, E e2) {
-            super(size);
+        DQ3(E e0, E e1, E e2) {
             this.e0 = e0;
             this.e1 = e1;
             this.e2 = e2;
@@ -620,6 +2138,49 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
             return f.apply(e2, n - m1);
         }
 
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            int m0 = internalSizeOf(e0);
+            if (n < m0) {
+                return internalTriple(f.apply(e0, n), e1, e2);
+            }
+            int m1 = internalSizeOf(e1) + m0;
+            if (n < m1) {
+                return internalTriple(e0, f.apply(e1, n - m0), e2);
+            }
+            return internalTriple(e0, e1, f.apply(e2, n - m1));
+        }
+
+        @Override
+        Cut<E> cut(int n) {
+            int m0 = internalSizeOf(e0);
+            if (n < m0) {
+                return new Cut<>(internalEmpty(), e0, internalPair(e1, e2));
+            }
+            if (n < internalSizeOf(e1) + m0) {
+                return new Cut<>(internalSingleton(e0), e1, internalSingleton(e2));
+            }
+            return new Cut<>(internalPair(e0, e1), e2, internalEmpty());
+        }
+
+        @Override
+        Object child(int i) {
+            switch (i) {
+                case 0:
+                    return e0;
+                case 1:
+                    return e1;
+                default:
+                    return e2;
+            }
+        }
+
+        @Override
+        int computeHash() {
+            int h = internalHashOf(e0) * pow97(internalSizeOf(e1)) + internalHashOf(e1);
+            return h * pow97(internalSizeOf(e2)) + internalHashOf(e2);
+        }
+
         @Override
         public void forEachLtoR(Consumer<E> consumer) {
             consumer.accept(e0);
@@ -638,8 +2199,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
     abstract static class DQ4<E> extends PDQueue<E> implements PDQueueFactory<E> {
         private final E e0, e1, e2, e3;
 
-        DQ4(int size, E e0, E e1, E e2, E e3) {
-            super(size);
+        DQ4(E e0, E e1, E e2, E e3) {
             this.e0 = e0;
             this.e1 = e1;
             this.e2 = e2;
@@ -717,10 +2277,63 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
             }
         }
 
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            int m0 = internalSizeOf(e0);
+            int m1 = internalSizeOf(e1) + m0;
+
+            if (n < m1) {
+                return n < m0 ? internalQuadruple(f.apply(e0, n), e1, e2, e3)
+                        : internalQuadruple(e0, f.apply(e1, n - m0), e2, e3);
+            } else {
+                int m2 = internalSizeOf(e2) + m1;
+                return n < m2 ? internalQuadruple(e0, e1, f.apply(e2, n - m1), e3)
+                        : internalQuadruple(e0, e1, e2, f.apply(e3, n - m2));
+            }
+        }
+
+        @Override
+        Cut<E> cut(int n) {
+            int m0 = internalSizeOf(e0);
+            int m1 = internalSizeOf(e1) + m0;
+
+            if (n < m1) {
+                return n < m0 ? new Cut<>(internalEmpty(), e0, internalTriple(e1, e2, e3))
+                        : new Cut<>(internalSingleton(e0), e1, internalPair(e2, e3));
+            } else {
+                int m2 = internalSizeOf(e2) + m1;
+                return n < m2 ? new Cut<>(internalPair(e0, e1), e2, internalSingleton(e3))
+                        : new Cut<>(internalTriple(e0, e1, e2), e3, internalEmpty());
+            }
+        }
+
+        @Override
+        Object child(int i) {
+            switch (i) {
+                case 0:
+                    return e0;
+                case 1:
+                    return e1;
+                case 2:
+                    return e2;
+                default:
+                    return e3;
+            }
+        }
+
+        @Override
+        int computeHash() {
+            int h = internalHashOf(e0) * pow97(internalSizeOf(e1)) + internalHashOf(e1);
+            h = h * pow97(internalSizeOf(e2)) + internalHashOf(e2);
+            return h * pow97(internalSizeOf(e3)) + internalHashOf(e3);
+        }
+
+        @Override
         PDQueue<E> leftPair() {
             return internalPair(e0, e1);
         }
 
+        @Override
         PDQueue<E> rightPair() {
             return internalPair(e2, e3);
         }
@@ -745,17 +2358,39 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
     abstract static class DQn<E> extends PDQueue<E> {
 
 
+        final int size;
+        int hash;
         final PDQueue<E> left;
         final PDQueue<PDQueue<E>> middle;
         final PDQueue<E> right;
 
         DQn(int size, PDQueue<E> left, PDQueue<PDQueue<E>> middle, PDQueue<E> right) {
-            super(size);
+            this.size = size;
             this.left = left;
             this.middle = middle;
             this.right = right;
         }
 
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        int polyHash() {
+            int h = hash;
+            if (h == 0) {
+                h = computeHash();
+                hash = h;
+            }
+            return h;
+        }
+
+        @Override
+        int cachedHash() {
+            return hash;
+        }
+
 
         protected int kind() {
             return 5;
@@ -881,8 +2516,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
                 case 3:
                     return middle.consR(right);
                 case 4:
-                    DQ4<E> r = (DQ4<E>) right;
-                    return middle.consR(r.leftPair()).consR(r.rightPair());
+                    return middle.consR(right.leftPair()).consR(right.rightPair());
                 default:
                     throw new IllegalStateException();
             }
@@ -894,8 +2528,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
                 case 3:
                     return middle.consL(left);
                 case 4:
-                    DQ4<E> l = (DQ4<E>) left;
-                    return middle.consL(l.rightPair()).consL(l.leftPair());
+                    return middle.consL(left.rightPair()).consL(left.leftPair());
                 default:
                     throw new IllegalStateException();
             }
@@ -904,8 +2537,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
         @Override
         protected PDQueue<E> prepareConsL() {
             if (left.kind() == 4) {
-                DQ4<E> l = (DQ4<E>) left;
-                return internalComplQ(l.leftPair(), middle.consL(l.rightPair()), right);
+                return internalComplQ(left.leftPair(), middle.consL(left.rightPair()), right);
             } else {
                 return this;
             }
@@ -914,8 +2546,7 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
         @Override
         protected PDQueue<E> prepareConsR() {
             if (right.kind() == 4) {
-                DQ4<E> r = (DQ4<E>) right;
-                return internalComplQ(left, middle.consR(r.leftPair()), ((DQ4<E>) right).rightPair());
+                return internalComplQ(left, middle.consR(right.leftPair()), right.rightPair());
             } else {
                 return this;
             }
@@ -973,6 +2604,56 @@ public abstract class PDQueue<E> implements PDQueueFactory<E> {
             }
         }
 
+        @Override
+        PDQueue<E> adjust(int n, Adjust<E> f) {
+            int m0 = left.size();
+            if (n < m0) {
+                return internalComplQ(left.adjust(n, f), middle, right);
+            }
+            int m1 = middle.size() + m0;
+            if (n < m1) {
+                return internalComplQ(left, middle.adjust(n - m0, (q, n0) -> q.adjust(n0, f)), right);
+            } else {
+                return internalComplQ(left, middle, right.adjust(n - m1, f));
+            }
+        }
+
+        @Override
+        Cut<E> cut(int n) {
+            int m0 = left.size();
+            if (n < m0) {
+                Cut<E> c = left.cut(n);
+                return new Cut<>(c.left, c.elem, internalDeepL(c.right, middle, right));
+            }
+            int m1 = middle.size() + m0;
+            if (n < m1) {
+                Cut<PDQueue<E>> mc = middle.cut(n - m0);
+                Cut<E> c = mc.elem.cut(n - m0 - mc.left.size());
+                return new Cut<>(internalDeepR(left, mc.left, c.left), c.elem, internalDeepL(c.right, mc.right, right));
+            } else {
+                Cut<E> c = right.cut(n - m1);
+                return new Cut<>(internalDeepR(left, middle, c.left), c.elem, c.right);
+            }
+        }
+
+        @Override
+        Object child(int i) {
+            switch (i) {
+                case 0:
+                    return left;
+                case 1:
+                    return middle;
+                default:
+                    return right;
+            }
+        }
+
+        @Override
+        int computeHash() {
+            int h = left.polyHash() * pow97(middle.size()) + middle.polyHash();
+            return h * pow97(right.size()) + right.polyHash();
+        }
+
         @Override
         public void forEachLtoR(Consumer<E> consumer) {
             left.forEachLtoR(consumer);
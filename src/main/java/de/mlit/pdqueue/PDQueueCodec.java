@@ -0,0 +1,261 @@
+package de.mlit.pdqueue;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Binary format for queues which keeps their structure. The nodes are written in pre-order: a tag with the kind of
+ * the node followed by its elements, or by the left, middle and right part for a complex node. The elements of the
+ * queue are written by an element writer supplied by the caller.
+ * <p>
+ * A writer can write several queues to the same output, e.g. several versions of a queue. If it deduplicates, each
+ * node shared between the queues written is written once and referenced by number afterwards, and the reader
+ * shares the node again when reading. Reading creates the nodes directly, without going through consL or consR.
+ */
+public final class PDQueueCodec {
+
+    private static final int MAGIC = 0x50445131;
+
+    private static final int REFERENCE = 6;
+
+    private PDQueueCodec() {
+    }
+
+    /**
+     * Writes an element of a queue
+     * @param <E> the type of the elements
+     */
+    @FunctionalInterface
+    public interface ElementWriter<E> {
+        void write(DataOutput out, E e) throws IOException;
+    }
+
+    /**
+     * Reads an element of a queue
+     * @param <E> the type of the elements
+     */
+    @FunctionalInterface
+    public interface ElementReader<E> {
+        E read(DataInput in) throws IOException;
+    }
+
+    /**
+     * Gives a writer writing queues to out. The writer starts by writing a header.
+     * @param out the output
+     * @param elementWriter writes the elements of the queues
+     * @param deduplicate if nodes shared between the queues written should be written once
+     * @param <E> the type of the elements
+     * @return the writer
+     * @throws IOException if writing the header fails
+     */
+    public static <E> Writer<E> writer(DataOutput out, ElementWriter<? super E> elementWriter, boolean deduplicate)
+            throws IOException {
+        return new Writer<>(out, elementWriter, deduplicate);
+    }
+
+    /**
+     * Gives a reader reading the queues written by a writer from in. The reader starts by reading the header.
+     * @param in the input
+     * @param elementReader reads the elements of the queues
+     * @param <E> the type of the elements
+     * @return the reader
+     * @throws IOException if reading the header fails or it is not the header of a writer
+     */
+    public static <E> Reader<E> reader(DataInput in, ElementReader<? extends E> elementReader) throws IOException {
+        return new Reader<>(in, elementReader);
+    }
+
+    /**
+     * Writes a single queue with header and without deduplication
+     * @param out the output
+     * @param q the queue
+     * @param elementWriter writes the elements of the queue
+     * @param <E> the type of the elements
+     * @throws IOException if writing fails
+     */
+    public static <E> void write(DataOutput out, PDQueue<E> q, ElementWriter<? super E> elementWriter)
+            throws IOException {
+        writer(out, elementWriter, false).write(q);
+    }
+
+    /**
+     * Reads a single queue written by write
+     * @param in the input
+     * @param elementReader reads the elements of the queue
+     * @param <E> the type of the elements
+     * @return the queue
+     * @throws IOException if reading fails or the input is not a queue
+     */
+    public static <E> PDQueue<E> read(DataInput in, ElementReader<? extends E> elementReader) throws IOException {
+        return PDQueueCodec.<E>reader(in, elementReader).read();
+    }
+
+    /**
+     * Writes queues to an output
+     * @param <E> the type of the elements
+     */
+    public static final class Writer<E> {
+
+        private final DataOutput out;
+        private final ElementWriter<? super E> elementWriter;
+        private final IdentityHashMap<PDQueue<?>, Integer> written;
+
+        private Writer(DataOutput out, ElementWriter<? super E> elementWriter, boolean deduplicate)
+                throws IOException {
+            this.out = out;
+            this.elementWriter = elementWriter;
+            this.written = deduplicate ? new IdentityHashMap<>() : null;
+            out.writeInt(MAGIC);
+            out.writeBoolean(deduplicate);
+        }
+
+        /**
+         * Writes a queue. If the writer deduplicates, nodes already written by this writer are written as references.
+         * @param q the queue
+         * @throws IOException if writing fails
+         */
+        public void write(PDQueue<? extends E> q) throws IOException {
+            if (q.kind() < 0) {
+                // a reversed view has no nodes of its own, it opens to a queue sharing the nodes of the underlying one
+                q = ((PDQueue.Reversed<? extends E>) q).open();
+            }
+            writeNode(q, 0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeNode(PDQueue<?> q, int level) throws IOException {
+            if (written != null && q.size() > 0) {
+                Integer id = written.get(q);
+                if (id != null) {
+                    out.writeByte(REFERENCE);
+                    writeVarInt(out, id);
+                    return;
+                }
+            }
+            int k = q.kind();
+            out.writeByte(k);
+            if (k == 5) {
+                PDQueue.DQn<?> dq = (PDQueue.DQn<?>) q;
+                writeNode(dq.left, level);
+                writeNode(dq.middle, level + 1);
+                writeNode(dq.right, level);
+            } else {
+                for (int i = 0; i < k; i++) {
+                    if (level == 0) {
+                        elementWriter.write(out, (E) q.child(i));
+                    } else {
+                        writeNode((PDQueue<?>) q.child(i), level - 1);
+                    }
+                }
+            }
+            if (written != null && q.size() > 0) {
+                written.put(q, written.size());
+            }
+        }
+    }
+
+    /**
+     * Reads queues written by a writer from an input
+     * @param <E> the type of the elements
+     */
+    public static final class Reader<E> {
+
+        private final DataInput in;
+        private final ElementReader<? extends E> elementReader;
+        private final List<PDQueue<?>> read;
+
+        private Reader(DataInput in, ElementReader<? extends E> elementReader) throws IOException {
+            this.in = in;
+            this.elementReader = elementReader;
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a queue");
+            }
+            this.read = in.readBoolean() ? new ArrayList<>() : null;
+        }
+
+        /**
+         * Reads the next queue
+         * @return the queue
+         * @throws IOException if reading fails or the input is not a queue
+         */
+        @SuppressWarnings("unchecked")
+        public PDQueue<E> read() throws IOException {
+            return (PDQueue<E>) readNode(0);
+        }
+
+        @SuppressWarnings("unchecked")
+        private PDQueue<?> readNode(int level) throws IOException {
+            int k = in.readUnsignedByte();
+            PDQueueFactory f = PDQueue.Builder.factory(level);
+            PDQueue<?> q;
+            if (k == REFERENCE && read != null) {
+                int id = readVarInt(in);
+                if (id >= read.size()) {
+                    throw new IOException("Invalid reference " + id);
+                }
+                return read.get(id);
+            } else if (k == 5) {
+                PDQueue left = readNode(level);
+                PDQueue middle = readNode(level + 1);
+                PDQueue right = readNode(level);
+                q = f.internalComplQ(left, middle, right);
+            } else if (k < 5) {
+                Object[] children = new Object[k];
+                for (int i = 0; i < k; i++) {
+                    children[i] = level == 0 ? elementReader.read(in) : readNode(level - 1);
+                }
+                q = PDQueue.digit(f, children, 0, k);
+            } else {
+                throw new IOException("Invalid tag " + k);
+            }
+            if (read != null && q.size() > 0) {
+                read.add(q);
+            }
+            return q;
+        }
+    }
+
+    static void writeVarInt(DataOutput out, int n) throws IOException {
+        while ((n & ~0x7f) != 0) {
+            out.writeByte((n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        out.writeByte(n);
+    }
+
+    static void writeVarLong(DataOutput out, long n) throws IOException {
+        while ((n & ~0x7fL) != 0) {
+            out.writeByte((int) (n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        out.writeByte((int) n);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int n = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            n |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return n;
+            }
+        }
+        throw new IOException("Invalid number");
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long n = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            n |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return n;
+            }
+        }
+        throw new IOException("Invalid number");
+    }
+}
@@ -0,0 +1,162 @@
+package de.mlit.pdqueue;
+
+import java.util.AbstractCollection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Read only Deque view of a queue. The inspecting operations work on the queue directly, all operations which would
+ * modify the deque throw UnsupportedOperationException.
+ */
+final class PDQueueDeque<E> extends AbstractCollection<E> implements Deque<E> {
+
+    private final PDQueue<E> q;
+
+    PDQueueDeque(PDQueue<E> q) {
+        this.q = q;
+    }
+
+    @Override
+    public int size() {
+        return q.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return q.isEmpty();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return q.iterator();
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return q.descendingIterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return q.spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        q.forEachLtoR(action::accept);
+    }
+
+    @Override
+    public E getFirst() {
+        if (q.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return q.headL();
+    }
+
+    @Override
+    public E getLast() {
+        if (q.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return q.headR();
+    }
+
+    @Override
+    public E peekFirst() {
+        return q.isEmpty() ? null : q.headL();
+    }
+
+    @Override
+    public E peekLast() {
+        return q.isEmpty() ? null : q.headR();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void addFirst(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addLast(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E removeFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E removeLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E poll() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void push(E e) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public E pop() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -82,6 +82,42 @@ interface PDQueueFactory<E> {
         }
     }
 
+    /**
+     * Not public api. Builds a queue from a left digit with less than four elements, which may be too small to be the
+     * left of a complex queue, a middle and a right digit.
+     * @param left
+     * @param middle
+     * @param right
+     * @return
+     */
+    default PDQueue<E> internalDeepL(PDQueue<E> left, PDQueue<PDQueue<E>> middle, PDQueue<E> right) {
+        if (left.kind() >= 2) {
+            return internalComplQ(left, middle, right);
+        } else if (middle.isEmpty()) {
+            return internalConcatenate(left, right);
+        } else {
+            return internalConcatenate(left, internalComplQ(middle.headL(), middle.tailL(), right));
+        }
+    }
+
+    /**
+     * Not public api. Builds a queue from a left digit, a middle and a right digit with less than four elements,
+     * which may be too small to be the right of a complex queue.
+     * @param left
+     * @param middle
+     * @param right
+     * @return
+     */
+    default PDQueue<E> internalDeepR(PDQueue<E> left, PDQueue<PDQueue<E>> middle, PDQueue<E> right) {
+        if (right.kind() >= 2) {
+            return internalComplQ(left, middle, right);
+        } else if (middle.isEmpty()) {
+            return internalConcatenate(left, right);
+        } else {
+            return internalConcatenate(internalComplQ(left, middle.tailR(), middle.headR()), right);
+        }
+    }
+
     /**
      * Not public api
      * @param e
@@ -89,6 +125,13 @@ interface PDQueueFactory<E> {
      */
     int internalSizeOf(E e);
 
+    /**
+     * Not public api. Gives the polynomial hash of the elements covered by e, see PDQueue.polyHash()
+     * @param e
+     * @return
+     */
+    int internalHashOf(E e);
+
     interface Top<A> extends PDQueueFactory<A> {
 
         static Top INSTANCE = new Top(){};
@@ -96,27 +139,47 @@ interface PDQueueFactory<E> {
         static class Q0<A> extends PDQueue.DQ0<A> implements Top<A> {}
 
         static class Q1<A> extends PDQueue.DQ1<A> implements Top<A> {
-            public Q1(int size, A e0) {
-                super(size, e0);
+            public Q1(A e0) {
+                super(e0);
+            }
+
+            @Override
+            public int size() {
+                return 1;
             }
         }
 
 
         static class Q2<A> extends PDQueue.DQ2<A> implements Top<A> {
-            Q2(int size, A e0, A e1) {
-                super(size, e0, e1);
+            Q2(A e0, A e1) {
+                super(e0, e1);
+            }
+
+            @Override
+            public int size() {
+                return 2;
             }
         }
 
         static class Q3<A> extends PDQueue.DQ3<A> implements Top<A> {
-            Q3(int size, A e0, A e1, A e2) {
-                super(size, e0, e1, e2);
+            Q3(A e0, A e1, A e2) {
+                super(e0, e1, e2);
+            }
+
+            @Override
+            public int size() {
+                return 3;
             }
         }
 
         static class Q4<A> extends PDQueue.DQ4<A> implements Top<A> {
-            Q4(int size, A e0, A e1, A e2, A e3) {
-                super(size, e0, e1, e2, e3);
+            Q4(A e0, A e1, A e2, A e3) {
+                super(e0, e1, e2, e3);
+            }
+
+            @Override
+            public int size() {
+                return 4;
             }
         }
 
@@ -135,22 +198,22 @@ interface PDQueueFactory<E> {
 
         @Override
         default public PDQueue<A> internalSingleton(A e0) {
-            return new Top.Q1(1,e0);
+            return new Top.Q1(e0);
         }
 
         @Override
         default public PDQueue<A> internalPair(A e0, A e1) {
-            return new Top.Q2(2, e0, e1);
+            return new Top.Q2(e0, e1);
         }
 
         @Override
         default public PDQueue<A> internalTriple(A e0, A e1, A e2) {
-            return new Top.Q3(3, e0, e1, e2);
+            return new Top.Q3(e0, e1, e2);
         }
 
         @Override
         default public PDQueue<A> internalQuadruple(A e0, A e1, A e2, A e3) {
-            return new Top.Q4(4, e0, e1, e2, e3);
+            return new Top.Q4(e0, e1, e2, e3);
         }
 
         @Override
@@ -167,6 +230,11 @@ interface PDQueueFactory<E> {
         default public int internalSizeOf(A A) {
             return 1;
         }
+
+        @Override
+        default int internalHashOf(A a) {
+            return a == null ? 0 : a.hashCode();
+        }
     }
 
 
@@ -178,26 +246,122 @@ interface PDQueueFactory<E> {
         }
 
         static class Q1<E> extends PDQueue.DQ1<PDQueue<E>> implements Nest<E> {
+            private final int size;
+            int hash;
+
             Q1(int size, PDQueue<E> e0) {
-                super(size, e0);
+                super(e0);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
             }
         }
 
         static class Q2<E> extends PDQueue.DQ2<PDQueue<E>> implements Nest<E> {
+            private final int size;
+            int hash;
+
             Q2(int size, PDQueue<E> e0, PDQueue<E> e1) {
-                super(size, e0, e1);
+                super(e0, e1);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
             }
         }
 
         static class Q3<E> extends PDQueue.DQ3<PDQueue<E>> implements Nest<E> {
+            private final int size;
+            int hash;
+
             Q3(int size, PDQueue<E> e0, PDQueue<E> e1, PDQueue<E> e2) {
-                super(size, e0, e1, e2);
+                super(e0, e1, e2);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
             }
         }
 
         static class Q4<E> extends PDQueue.DQ4<PDQueue<E>> implements Nest<E> {
+            private final int size;
+            int hash;
+
             Q4(int size, PDQueue<E> e0, PDQueue<E> e1, PDQueue<E> e2, PDQueue<E> e3) {
-                super(size, e0, e1, e2, e3);
+                super(e0, e1, e2, e3);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
             }
         }
 
@@ -250,7 +414,197 @@ interface PDQueueFactory<E> {
             return dq.size();
         }
 
+        @Override
+        default int internalHashOf(PDQueue<E> dq) {
+            return dq.polyHash();
+        }
+
     }
 
 
+    /**
+     * Not public api. Elements of nested levels which know their size.
+     */
+    interface Sized {
+        int size();
+    }
+
+    /**
+     * Not public api. Factory for the first nested level of the primitive queues, whose elements are the digits of
+     * the top level.
+     */
+    interface Digits<A extends Sized> extends PDQueueFactory<A> {
+
+        static class Q0<A extends Sized> extends PDQueue.DQ0<A> implements Digits<A> {
+
+        }
+
+        static class Q1<A extends Sized> extends PDQueue.DQ1<A> implements Digits<A> {
+            private final int size;
+            int hash;
+
+            Q1(int size, A e0) {
+                super(e0);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+        }
+
+        static class Q2<A extends Sized> extends PDQueue.DQ2<A> implements Digits<A> {
+            private final int size;
+            int hash;
+
+            Q2(int size, A e0, A e1) {
+                super(e0, e1);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+        }
+
+        static class Q3<A extends Sized> extends PDQueue.DQ3<A> implements Digits<A> {
+            private final int size;
+            int hash;
+
+            Q3(int size, A e0, A e1, A e2) {
+                super(e0, e1, e2);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+        }
+
+        static class Q4<A extends Sized> extends PDQueue.DQ4<A> implements Digits<A> {
+            private final int size;
+            int hash;
+
+            Q4(int size, A e0, A e1, A e2, A e3) {
+                super(e0, e1, e2, e3);
+                this.size = size;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            int polyHash() {
+                int h = hash;
+                if (h == 0) {
+                    h = computeHash();
+                    hash = h;
+                }
+                return h;
+            }
+
+            @Override
+            int cachedHash() {
+                return hash;
+            }
+        }
+
+        static class Qn<A extends Sized> extends PDQueue.DQn<A> implements Digits<A> {
+            Qn(int size, PDQueue<A> left, PDQueue<PDQueue<A>> middle, PDQueue<A> right) {
+                super(size, left, middle, right);
+            }
+        }
+
+        Q0 EMPTY = new Q0();
+
+        default PDQueue<A> internalEmpty() {
+            return EMPTY;
+        }
+
+        default PDQueue<A> internalSingleton(A e0) {
+            return new Q1<>(e0.size(), e0);
+        }
+
+        default PDQueue<A> internalPair(A e0, A e1) {
+            return new Q2<>(e0.size() + e1.size(), e0, e1);
+        }
+
+        default PDQueue<A> internalTriple(A e0, A e1, A e2) {
+            return new Q3<>(e0.size() + e1.size() + e2.size(), e0, e1, e2);
+        }
+
+        default PDQueue<A> internalQuadruple(A e0, A e1, A e2, A e3) {
+            return new Q4<>(e0.size() + e1.size() + e2.size() + e3.size(), e0, e1, e2, e3);
+        }
+
+        default PDQueue<A> internalComplQ(PDQueue<A> left, PDQueue<PDQueue<A>> middle, PDQueue<A> right) {
+            return new Qn<>(left.size() + middle.size() + right.size(), left, middle, right);
+        }
+
+        default PDQueue<A> internalComplQ(PDQueue<A> left, PDQueue<A> right) {
+            return new Qn<A>(left.size() + right.size(), left, Nest.EMPTY, right);
+        }
+
+        default int internalSizeOf(A a) {
+            return a.size();
+        }
+
+        /**
+         * The hash codes of the primitive queues are 47*97^n plus their polynomial hash
+         */
+        default int internalHashOf(A a) {
+            return a.hashCode() - 47 * PDQueue.pow97(a.size());
+        }
+    }
+
 }
@@ -0,0 +1,150 @@
+package de.mlit.pdqueue;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares equal nodes of queues (hash consing). intern canonicalizes a queue bottom up: each digit and each node with
+ * left, middle and right part is replaced by the equal node seen first, where elements are compared with equals and
+ * nested nodes, being canonical already, by identity. Queues interned with the same interner share all equal
+ * subtrees, so equals finds them by reference comparison and their memory is only taken once.
+ * <p>
+ * The table holds its nodes weakly, so nodes no longer used by any queue are garbage collected, and it is safe for
+ * use by several threads. Interning takes linear time for a queue which has not been interned before; queues derived
+ * from interned ones only rebuild the nodes which are new.
+ */
+public final class PDQueueInterner {
+
+    private final ConcurrentHashMap<Key, Key> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<PDQueue<?>> collected = new ReferenceQueue<>();
+
+    /**
+     * Returns a queue with the same elements as q, all of whose nodes are canonical for this interner
+     * @param q the queue
+     * @param <E> the type of the elements in the queue
+     * @return the canonical queue, which is q itself if all of its nodes are canonical already
+     */
+    @SuppressWarnings("unchecked")
+    public <E> PDQueue<E> intern(PDQueue<E> q) {
+        expunge();
+        if (q.kind() < 0) {
+            return intern(q.reversed()).reversed();
+        }
+        return (PDQueue<E>) intern(q, 0);
+    }
+
+    /**
+     * Gives the number of nodes in the table, including nodes which have been collected but not yet removed
+     * @return the number of nodes
+     */
+    public int size() {
+        expunge();
+        return table.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private PDQueue<?> intern(PDQueue<?> q, int level) {
+        if (q instanceof PDQueue.ReversedNode) {
+            // its children are created on demand, so only the materialized node can be canonical
+            q = ((PDQueue.ReversedNode<?>) q).open();
+        }
+        int k = q.kind();
+        if (k == 0) {
+            return q;
+        }
+        PDQueue node = q;
+        if (k == 5) {
+            PDQueue.DQn<?> dq = (PDQueue.DQn<?>) q;
+            PDQueue<?> left = intern(dq.left, level);
+            PDQueue<?> middle = intern(dq.middle, level + 1);
+            PDQueue<?> right = intern(dq.right, level);
+            if (left != dq.left || middle != dq.middle || right != dq.right) {
+                node = dq.internalComplQ((PDQueue) left, (PDQueue) middle, (PDQueue) right);
+            }
+        } else if (level > 0) {
+            Object[] children = new Object[k];
+            boolean changed = false;
+            for (int i = 0; i < k; i++) {
+                Object child = q.child(i);
+                children[i] = intern((PDQueue<?>) child, level - 1);
+                changed |= children[i] != child;
+            }
+            if (changed) {
+                // each node is the factory of its own level
+                node = PDQueue.digit(q, children, 0, k);
+            }
+        }
+        return canonical(node, level);
+    }
+
+    private PDQueue<?> canonical(PDQueue<?> node, int level) {
+        Key key = new Key(node, level, collected);
+        while (true) {
+            Key existing = table.putIfAbsent(key, key);
+            if (existing == null) {
+                return node;
+            }
+            PDQueue<?> canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            table.remove(existing, existing);
+        }
+    }
+
+    private void expunge() {
+        for (Object ref; (ref = collected.poll()) != null; ) {
+            table.remove(ref, ref);
+        }
+    }
+
+    /**
+     * Weak reference to a node, equal to references to nodes of the same class and level with the same children
+     */
+    static final class Key extends WeakReference<PDQueue<?>> {
+        private final int hash;
+        private final int level;
+
+        Key(PDQueue<?> node, int level, ReferenceQueue<PDQueue<?>> queue) {
+            super(node, queue);
+            this.hash = node.hashCode() * 31 + level;
+            this.level = level;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            PDQueue<?> a = get();
+            PDQueue<?> b = other.get();
+            if (a == null || b == null || hash != other.hash || level != other.level || a.getClass() != b.getClass()
+                    || a.size() != b.size()) {
+                return false;
+            }
+            int k = a.kind();
+            if (k == 5) {
+                PDQueue.DQn<?> dqa = (PDQueue.DQn<?>) a;
+                PDQueue.DQn<?> dqb = (PDQueue.DQn<?>) b;
+                return dqa.left == dqb.left && dqa.middle == dqb.middle && dqa.right == dqb.right;
+            }
+            for (int i = 0; i < k; i++) {
+                Object ca = a.child(i);
+                Object cb = b.child(i);
+                if (level > 0 ? ca != cb : !(ca == null ? cb == null : ca.equals(cb))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
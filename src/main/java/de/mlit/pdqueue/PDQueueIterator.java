@@ -0,0 +1,180 @@
+package de.mlit.pdqueue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Iterates over the elements of a queue by walking the left, middle and right parts with an explicit stack.
+ * Each stack entry is a node together with its nesting level, where the elements of a node of level 0 are the
+ * elements of the queue and the elements of a node of level n+1 are nodes of level n. Elements of the queue are
+ * pushed with level ELEMENT. Apart from growing the stack, no objects are allocated while iterating.
+ * If the iterator is weighted, the elements are sized and remaining counts units of their sizes.
+ */
+class PDQueueIterator<E> implements Iterator<E> {
+
+    static final int ELEMENT = -1;
+
+    Object[] nodes;
+    int[] levels;
+    int top;
+    int remaining;
+    final boolean reverse;
+    final boolean weighted;
+
+    PDQueueIterator(PDQueue<E> q, boolean reverse) {
+        this(q, reverse, false);
+    }
+
+    PDQueueIterator(PDQueue<E> q, boolean reverse, boolean weighted) {
+        this(reverse, weighted, 16);
+        remaining = q.size();
+        push(q, 0);
+    }
+
+    /**
+     * Creates an iterator over the elements from index from to index to of q, from right to left if reverse is set.
+     * The iterator starts by skipping the nodes before the range, expanding only the nodes the range starts in.
+     */
+    PDQueueIterator(PDQueue<E> q, boolean reverse, int from, int to) {
+        this(reverse, false, 16);
+        remaining = to - from;
+        if (remaining > 0) {
+            push(q, 0);
+            skip(reverse ? q.size() - to : from);
+        }
+    }
+
+    PDQueueIterator(boolean reverse, boolean weighted, int capacity) {
+        this.reverse = reverse;
+        this.weighted = weighted;
+        this.nodes = new Object[capacity];
+        this.levels = new int[capacity];
+    }
+
+    final void push(Object node, int level) {
+        if (top == nodes.length) {
+            nodes = Arrays.copyOf(nodes, top * 2);
+            levels = Arrays.copyOf(levels, top * 2);
+        }
+        nodes[top] = node;
+        levels[top] = level;
+        top++;
+    }
+
+    final int weight(Object element) {
+        return weighted ? ((PDQueueFactory.Sized) element).size() : 1;
+    }
+
+    final int sizeAt(int i) {
+        return levels[i] == ELEMENT ? weight(nodes[i]) : ((PDQueue<?>) nodes[i]).size();
+    }
+
+    /**
+     * Replaces the node on top of the stack by its children, the next one to be visited on top.
+     */
+    final void expand() {
+        top--;
+        PDQueue<?> q = (PDQueue<?>) nodes[top];
+        int level = levels[top];
+        nodes[top] = null;
+        int k = q.kind();
+        if (k == 5) {
+            PDQueue.DQn<?> dq = (PDQueue.DQn<?>) q;
+            PDQueue<?> first = reverse ? dq.right : dq.left;
+            PDQueue<?> last = reverse ? dq.left : dq.right;
+            push(last, level);
+            if (!dq.middle.isEmpty()) {
+                push(dq.middle, level + 1);
+            }
+            push(first, level);
+        } else {
+            int childLevel = level == 0 ? ELEMENT : level - 1;
+            if (reverse) {
+                for (int i = 0; i < k; i++) {
+                    push(q.child(i), childLevel);
+                }
+            } else {
+                for (int i = k - 1; i >= 0; i--) {
+                    push(q.child(i), childLevel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the next n elements, popping whole nodes and expanding only those which are not skipped completely.
+     */
+    final void skip(int n) {
+        while (n > 0) {
+            int s = sizeAt(top - 1);
+            if (s <= n) {
+                top--;
+                nodes[top] = null;
+                n -= s;
+            } else {
+                expand();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    final E advance() {
+        while (levels[top - 1] != ELEMENT) {
+            expand();
+        }
+        top--;
+        E e = (E) nodes[top];
+        nodes[top] = null;
+        return e;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    @Override
+    public E next() {
+        if (remaining <= 0) {
+            throw new NoSuchElementException();
+        }
+        E e = advance();
+        remaining -= weight(e);
+        return e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(Consumer<? super E> action) {
+        while (remaining > 0) {
+            int level = levels[top - 1];
+            if (level == ELEMENT) {
+                top--;
+                E e = (E) nodes[top];
+                nodes[top] = null;
+                remaining -= weight(e);
+                action.accept(e);
+            } else if (level == 0 && ((PDQueue<?>) nodes[top - 1]).kind() < 5
+                    && ((PDQueue<?>) nodes[top - 1]).size() <= remaining) {
+                top--;
+                PDQueue<?> q = (PDQueue<?>) nodes[top];
+                nodes[top] = null;
+                int k = q.kind();
+                remaining -= q.size();
+                if (reverse) {
+                    for (int i = k - 1; i >= 0; i--) {
+                        action.accept((E) q.child(i));
+                    }
+                } else {
+                    for (int i = 0; i < k; i++) {
+                        action.accept((E) q.child(i));
+                    }
+                }
+            } else {
+                expand();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.mlit.pdqueue;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Read only List view of the elements from index offset to offset+size (exclusive) of a queue. Nothing is copied:
+ * get descends the queue in logarithmic time, iteration descends to offset once and then walks the structure of
+ * the queue, and subList gives another view of the same queue.
+ */
+final class PDQueueList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final PDQueue<E> q;
+    private final int offset;
+    private final int size;
+
+    PDQueueList(PDQueue<E> q) {
+        this(q, 0, q.size());
+    }
+
+    private PDQueueList(PDQueue<E> q, int offset, int size) {
+        this.q = q;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    @Override
+    public E get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return q.get(offset + index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<E> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException();
+        }
+        return new PDQueueList<>(q, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return q.rangeSpliterator(offset, offset + size, false);
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return q.rangeSpliterator(offset, offset + size, false);
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        q.forEachInRange(offset, offset + size, action);
+    }
+}
@@ -0,0 +1,82 @@
+package de.mlit.pdqueue;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Maps the elements of a queue node for node, so the result has exactly the shape of the original queue. The nodes
+ * are rebuilt bottom up with the factories of their levels, where the children of a node of level n+1 are nodes of
+ * level n and the children of a node of level 0 are the elements.
+ */
+final class PDQueueMap {
+
+    /**
+     * Nodes up to this size are mapped sequentially by a parallel map
+     */
+    static final int THRESHOLD = 4096;
+
+    private PDQueueMap() {
+    }
+
+    static PDQueue<?> map(PDQueue<?> q, int level, Function<Object, ?> f) {
+        int k = q.kind();
+        if (k == 5) {
+            PDQueue.DQn<?> dq = (PDQueue.DQn<?>) q;
+            return PDQueue.complQ(PDQueue.Builder.factory(level), map(dq.left, level, f),
+                    map(dq.middle, level + 1, f), map(dq.right, level, f));
+        }
+        Object[] children = new Object[k];
+        for (int i = 0; i < k; i++) {
+            Object child = q.child(i);
+            children[i] = level == 0 ? f.apply(child) : map((PDQueue<?>) child, level - 1, f);
+        }
+        return PDQueue.digit(PDQueue.Builder.factory(level), children, 0, k);
+    }
+
+    /**
+     * Maps a node by forking tasks for the left, middle and right part of a DQn, and for the children of a digit of
+     * a nested level, down to nodes of THRESHOLD elements.
+     */
+    static final class Task extends RecursiveTask<PDQueue<?>> {
+        private static final long serialVersionUID = 1L;
+
+        private final PDQueue<?> q;
+        private final int level;
+        private final Function<Object, ?> f;
+
+        Task(PDQueue<?> q, int level, Function<Object, ?> f) {
+            this.q = q;
+            this.level = level;
+            this.f = f;
+        }
+
+        @Override
+        protected PDQueue<?> compute() {
+            if (q.size() <= THRESHOLD || level == 0 && q.kind() < 5) {
+                return map(q, level, f);
+            }
+            int k = q.kind();
+            if (k == 5) {
+                PDQueue.DQn<?> dq = (PDQueue.DQn<?>) q;
+                Task left = new Task(dq.left, level, f);
+                Task middle = new Task(dq.middle, level + 1, f);
+                left.fork();
+                middle.fork();
+                PDQueue<?> right = new Task(dq.right, level, f).compute();
+                PDQueue<?> m = middle.join();
+                return PDQueue.complQ(PDQueue.Builder.factory(level), left.join(), m, right);
+            }
+            Task[] tasks = new Task[k];
+            for (int i = 0; i < k - 1; i++) {
+                tasks[i] = new Task((PDQueue<?>) q.child(i), level - 1, f);
+                tasks[i].fork();
+            }
+            Object[] children = new Object[k];
+            children[k - 1] = new Task((PDQueue<?>) q.child(k - 1), level - 1, f).compute();
+            for (int i = k - 2; i >= 0; i--) {
+                children[i] = tasks[i].join();
+            }
+            return PDQueue.digit(PDQueue.Builder.factory(level), children, 0, k);
+        }
+    }
+}
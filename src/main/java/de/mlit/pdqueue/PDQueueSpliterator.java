@@ -0,0 +1,96 @@
+package de.mlit.pdqueue;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the elements of a queue. Splitting hands out a prefix of the entries on the stack of the
+ * underlying iterator, expanding nodes along the left, middle and right parts until exactly half of the remaining
+ * elements are covered.
+ */
+class PDQueueSpliterator<E> extends PDQueueIterator<E> implements Spliterator<E> {
+
+    PDQueueSpliterator(PDQueue<E> q) {
+        super(q, false);
+    }
+
+    PDQueueSpliterator(PDQueue<E> q, boolean weighted) {
+        super(q, false, weighted);
+    }
+
+    PDQueueSpliterator(PDQueue<E> q, boolean reverse, boolean weighted) {
+        super(q, reverse, weighted);
+    }
+
+    PDQueueSpliterator(PDQueue<E> q, boolean reverse, int from, int to) {
+        super(q, reverse, from, to);
+    }
+
+    private PDQueueSpliterator(boolean reverse, boolean weighted, int capacity) {
+        super(reverse, weighted, capacity);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (remaining <= 0) {
+            return false;
+        }
+        E e = advance();
+        remaining -= weight(e);
+        action.accept(e);
+        return true;
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        if (remaining < 2) {
+            return null;
+        }
+        int half = remaining / 2;
+        int acc = 0;
+        int n = 0;
+        Object[] prefixNodes = new Object[16];
+        int[] prefixLevels = new int[16];
+        while (acc < half) {
+            int s = sizeAt(top - 1);
+            if (acc + s > half && levels[top - 1] != ELEMENT) {
+                expand();
+            } else if (acc + s <= half || (acc == 0 && s < remaining)) {
+                if (n == prefixNodes.length) {
+                    prefixNodes = Arrays.copyOf(prefixNodes, n * 2);
+                    prefixLevels = Arrays.copyOf(prefixLevels, n * 2);
+                }
+                top--;
+                prefixNodes[n] = nodes[top];
+                prefixLevels[n] = levels[top];
+                nodes[top] = null;
+                n++;
+                acc += s;
+            } else {
+                // a weighted element that does not fit into the first half
+                break;
+            }
+        }
+        if (n == 0) {
+            return null;
+        }
+        PDQueueSpliterator<E> prefix = new PDQueueSpliterator<>(reverse, weighted, n + 16);
+        for (int i = n - 1; i >= 0; i--) {
+            prefix.push(prefixNodes[i], prefixLevels[i]);
+        }
+        prefix.remaining = acc;
+        remaining -= acc;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return SIZED | SUBSIZED | ORDERED | IMMUTABLE;
+    }
+}
@@ -0,0 +1,245 @@
+package de.mlit.pdqueue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Structural statistics of a queue: the number of nesting levels, the number of nodes of each kind per level and an
+ * estimate of the memory retained by the nodes. Level 0 holds the nodes whose children are the elements, the middle
+ * of a node of level n has level n+1. Every node is counted once, even if it occurs at several positions of the
+ * queue, and the empty nodes, which are shared constants, are not counted at all. The elements are not included in
+ * the bytes.
+ * <p>
+ * sharedNodes and uniqueBytes compare two versions of a queue by the identity of their nodes, which shows how much
+ * memory a derived queue takes in addition to the queue it was derived from.
+ */
+public final class PDQueueStats {
+
+    /**
+     * Estimated shallow size of a node of a class on a 64 bit VM with compressed references
+     */
+    private static final ClassValue<Long> SHALLOW_SIZE = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long bytes = 12;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(f.getModifiers())) {
+                        Class<?> t = f.getType();
+                        bytes += t == long.class || t == double.class ? 8
+                                : t == short.class || t == char.class ? 2
+                                : t == byte.class || t == boolean.class ? 1 : 4;
+                    }
+                }
+            }
+            return (bytes + 7) & ~7L;
+        }
+    };
+
+    private final int size;
+    private final List<long[]> kinds = new ArrayList<>();
+    private long nodes;
+    private long bytes;
+
+    private PDQueueStats(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Collects the statistics of a queue. This takes linear time in the number of nodes.
+     * @param q the queue
+     * @return the statistics
+     */
+    public static PDQueueStats of(PDQueue<?> q) {
+        PDQueueStats stats = new PDQueueStats(q.size());
+        new Walker() {
+            @Override
+            boolean visit(PDQueue<?> node, int level) {
+                while (stats.kinds.size() <= level) {
+                    stats.kinds.add(new long[6]);
+                }
+                stats.kinds.get(level)[node.kind()]++;
+                stats.nodes++;
+                stats.bytes += shallowSize(node);
+                return true;
+            }
+        }.walk(q);
+        return stats;
+    }
+
+    /**
+     * Gives the number of nodes of q2 which are nodes of q1 as well
+     * @param q1 the first queue
+     * @param q2 the second queue
+     * @return the number of nodes shared by both queues
+     */
+    public static long sharedNodes(PDQueue<?> q1, PDQueue<?> q2) {
+        IdentityHashMap<Object, Boolean> nodes1 = nodes(q1);
+        long[] shared = new long[1];
+        new Walker() {
+            @Override
+            boolean visit(PDQueue<?> node, int level) {
+                if (nodes1.containsKey(node)) {
+                    shared[0]++;
+                }
+                return true;
+            }
+        }.walk(q2);
+        return shared[0];
+    }
+
+    /**
+     * Gives the estimated bytes retained by the nodes of q2 which are not nodes of q1, which is the memory q2 takes in
+     * addition to q1
+     * @param q1 the first queue
+     * @param q2 the second queue
+     * @return the estimated bytes of the nodes only used by q2
+     */
+    public static long uniqueBytes(PDQueue<?> q1, PDQueue<?> q2) {
+        IdentityHashMap<Object, Boolean> nodes1 = nodes(q1);
+        long[] unique = new long[1];
+        new Walker() {
+            @Override
+            boolean visit(PDQueue<?> node, int level) {
+                if (nodes1.containsKey(node)) {
+                    // all nodes below a shared node are shared as well
+                    return false;
+                }
+                unique[0] += shallowSize(node);
+                return true;
+            }
+        }.walk(q2);
+        return unique[0];
+    }
+
+    private static IdentityHashMap<Object, Boolean> nodes(PDQueue<?> q) {
+        IdentityHashMap<Object, Boolean> nodes = new IdentityHashMap<>();
+        new Walker() {
+            @Override
+            boolean visit(PDQueue<?> node, int level) {
+                nodes.put(node, Boolean.TRUE);
+                return true;
+            }
+        }.walk(q);
+        return nodes;
+    }
+
+    private static long shallowSize(Object node) {
+        return SHALLOW_SIZE.get(node.getClass());
+    }
+
+    /**
+     * Gives the number of elements of the queue
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gives the number of nesting levels, 0 for the empty queue
+     * @return the depth
+     */
+    public int depth() {
+        return kinds.size();
+    }
+
+    /**
+     * Gives the number of nodes
+     * @return the number of nodes of all levels
+     */
+    public long nodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Gives the number of nodes of a level
+     * @param level the level
+     * @return the number of nodes of the level, 0 if the level does not exist
+     */
+    public long nodeCount(int level) {
+        long n = 0;
+        for (int kind = 1; kind <= 5; kind++) {
+            n += kindCount(level, kind);
+        }
+        return n;
+    }
+
+    /**
+     * Gives the number of nodes of a kind on a level. The kinds 1 to 4 are digits with that many children, kind 5 are
+     * nodes with left, middle and right part.
+     * @param level the level
+     * @param kind the kind
+     * @return the number of nodes, 0 if the level does not exist
+     */
+    public long kindCount(int level, int kind) {
+        if (kind < 1 || kind > 5) {
+            throw new IllegalArgumentException("Invalid kind " + kind);
+        }
+        return level >= 0 && level < kinds.size() ? kinds.get(level)[kind] : 0;
+    }
+
+    /**
+     * Gives the estimated bytes retained by the nodes on a 64 bit VM with compressed references, not including the
+     * elements
+     * @return the estimated bytes
+     */
+    public long estimatedBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("size=").append(size).append(", depth=").append(depth()).append(", nodes=").append(nodes)
+                .append(", bytes=").append(bytes);
+        for (int level = 0; level < kinds.size(); level++) {
+            long[] k = kinds.get(level);
+            sb.append("\n  level ").append(level).append(": digits 1/2/3/4=").append(k[1]).append('/').append(k[2])
+                    .append('/').append(k[3]).append('/').append(k[4]).append(", nodes=").append(k[5]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Visits every non empty node of a queue once together with its level. A reversed node is visited as the digit
+     * it wraps.
+     */
+    abstract static class Walker {
+        private final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+
+        /**
+         * Called for each node
+         * @return true if the children of the node are to be visited
+         */
+        abstract boolean visit(PDQueue<?> node, int level);
+
+        final void walk(PDQueue<?> q) {
+            walk(q.kind() < 0 ? q.reversed() : q, 0);
+        }
+
+        private void walk(PDQueue<?> node, int level) {
+            if (node instanceof PDQueue.ReversedNode) {
+                // its children are created on each call, the digit it wraps and its children are the retained nodes
+                node = ((PDQueue.ReversedNode<?>) node).q;
+            }
+            int k = node.kind();
+            if (k == 0 || seen.put(node, Boolean.TRUE) != null || !visit(node, level)) {
+                return;
+            }
+            if (k == 5) {
+                PDQueue.DQn<?> dq = (PDQueue.DQn<?>) node;
+                walk(dq.left, level);
+                walk(dq.middle, level + 1);
+                walk(dq.right, level);
+            } else if (level > 0) {
+                for (int i = 0; i < k; i++) {
+                    walk((PDQueue<?>) node.child(i), level - 1);
+                }
+            }
+        }
+    }
+}
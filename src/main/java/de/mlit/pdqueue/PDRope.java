@@ -0,0 +1,259 @@
+package de.mlit.pdqueue;
+
+import java.util.Iterator;
+
+/**
+ * A persistent rope: an immutable CharSequence stored as pieces of text of up to PIECE_SIZE characters. The pieces
+ * are the elements of a PDQueue weighted by their length, so the cached sizes of the nodes count characters. charAt,
+ * subSequence, insert, delete and concat take logarithmic time, copying at most the pieces at the split points,
+ * and the results share all other pieces and nodes with the original rope.
+ */
+public final class PDRope implements CharSequence {
+
+    /**
+     * The maximal number of characters in a piece
+     */
+    public static final int PIECE_SIZE = 512;
+
+    @SuppressWarnings("unchecked")
+    private static final PDRope EMPTY = new PDRope(PDQueueFactory.Digits.EMPTY);
+
+    private final PDQueue<Piece> pieces;
+
+    private PDRope(PDQueue<Piece> pieces) {
+        this.pieces = pieces;
+    }
+
+    /**
+     * Returns the empty rope
+     * @return the empty rope
+     */
+    public static PDRope empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a rope containing the characters of s
+     * @param s the characters
+     * @return the rope
+     */
+    @SuppressWarnings("unchecked")
+    public static PDRope of(CharSequence s) {
+        if (s instanceof PDRope) {
+            return (PDRope) s;
+        }
+        PDQueue<Piece> pieces = PDQueueFactory.Digits.EMPTY;
+        int n = s.length();
+        for (int i = 0; i < n; i += PIECE_SIZE) {
+            pieces = pieces.consR(new Piece(s.subSequence(i, Math.min(n, i + PIECE_SIZE)).toString()));
+        }
+        return new PDRope(pieces);
+    }
+
+    /**
+     * Returns the concatenation of two ropes. The pieces at the boundary are merged if they fit into one piece.
+     * @param r1 the left rope
+     * @param r2 the right rope
+     * @return the concatenation of r1 and r2
+     */
+    public static PDRope concat(PDRope r1, PDRope r2) {
+        PDQueue<Piece> p1 = r1.pieces;
+        PDQueue<Piece> p2 = r2.pieces;
+        if (p1.isEmpty()) {
+            return r2;
+        } else if (p2.isEmpty()) {
+            return r1;
+        }
+        String last = p1.headR().text;
+        String first = p2.headL().text;
+        if (last.length() + first.length() <= PIECE_SIZE) {
+            p1 = p1.replaceR(new Piece(last.concat(first)));
+            p2 = p2.tailL();
+        }
+        return new PDRope(p1.internalConcatenate(p1, p2));
+    }
+
+    @Override
+    public int length() {
+        return pieces.size();
+    }
+
+    /**
+     * Checks if the rope is empty
+     * @return true if the length is 0
+     */
+    public boolean isEmpty() {
+        return pieces.isEmpty();
+    }
+
+    /**
+     * Returns the character at index n. This takes logarithmic time.
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;=length()
+     * @param n the index
+     * @return the character
+     */
+    @Override
+    public char charAt(int n) {
+        if (n < 0 || n >= length()) {
+            throw new IndexOutOfBoundsException();
+        }
+        // the elements of level 0 are pieces weighted by their length
+        PDQueue.Leaf leaf = PDQueue.leafAt(pieces, n, true);
+        return ((Piece) leaf.element).text.charAt(leaf.offset);
+    }
+
+    /**
+     * Returns the rope of the characters from index from (inclusive) to index to (exclusive). This takes logarithmic
+     * time.
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;length() or from&gt;to
+     * @param from the index of the first character
+     * @param to the index after the last character
+     * @return the sub rope
+     */
+    @Override
+    public PDRope subSequence(int from, int to) {
+        checkRange(from, to);
+        return new PDRope(split(split(pieces, to).left(), from).right());
+    }
+
+    /**
+     * Returns the rope with s inserted at index n
+     * @throws IndexOutOfBoundsException if n&lt;0 or n&gt;length()
+     * @param n the index
+     * @param s the characters to insert
+     * @return the new rope
+     */
+    public PDRope insert(int n, CharSequence s) {
+        checkRange(n, n);
+        PDQueue.Split<Piece> split = split(pieces, n);
+        return concat(concat(new PDRope(split.left()), of(s)), new PDRope(split.right()));
+    }
+
+    /**
+     * Returns the rope without the characters from index from (inclusive) to index to (exclusive)
+     * @throws IndexOutOfBoundsException if from&lt;0, to&gt;length() or from&gt;to
+     * @param from the index of the first character to delete
+     * @param to the index after the last character to delete
+     * @return the new rope
+     */
+    public PDRope delete(int from, int to) {
+        checkRange(from, to);
+        return concat(new PDRope(split(pieces, from).left()), new PDRope(split(pieces, to).right()));
+    }
+
+    /**
+     * Returns the rope with s appended to the right
+     * @param s the characters to append
+     * @return the new rope
+     */
+    public PDRope append(CharSequence s) {
+        return concat(this, of(s));
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > length() || from > to) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    /**
+     * Splits the pieces at character index n, splitting the piece containing n if n is inside of it
+     */
+    private static PDQueue.Split<Piece> split(PDQueue<Piece> pieces, int n) {
+        if (n == 0 || n == pieces.size()) {
+            return pieces.splitAt(n);
+        }
+        PDQueue.Cut<Piece> cut = pieces.cut(n);
+        int offset = n - cut.left.size();
+        if (offset == 0) {
+            return new PDQueue.Split<>(cut.left, cut.right.consL(cut.elem));
+        }
+        String text = cut.elem.text;
+        return new PDQueue.Split<>(cut.left.consR(new Piece(text.substring(0, offset))),
+                cut.right.consL(new Piece(text.substring(offset))));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length());
+        pieces.forEachLtoR(piece -> sb.append(piece.text));
+        return sb.toString();
+    }
+
+    /**
+     * Gives the same hash code as a PDQueue of the characters of the rope, independent of how they are split into
+     * pieces
+     */
+    @Override
+    public int hashCode() {
+        return pieces.hashCode();
+    }
+
+    /**
+     * Checks if obj is a rope with the same characters
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PDRope)) {
+            return false;
+        } else if (obj == this) {
+            return true;
+        }
+        PDRope other = (PDRope) obj;
+        if (length() != other.length()) {
+            return false;
+        }
+        Iterator<Piece> it1 = new PDQueueIterator<>(pieces, false, true);
+        Iterator<Piece> it2 = new PDQueueIterator<>(other.pieces, false, true);
+        String s1 = "";
+        String s2 = "";
+        int i1 = 0;
+        int i2 = 0;
+        for (int n = length(); n > 0; ) {
+            if (i1 == s1.length()) {
+                s1 = it1.next().text;
+                i1 = 0;
+            }
+            if (i2 == s2.length()) {
+                s2 = it2.next().text;
+                i2 = 0;
+            }
+            int k = Math.min(s1.length() - i1, s2.length() - i2);
+            if (!s1.regionMatches(i1, s2, i2, k)) {
+                return false;
+            }
+            i1 += k;
+            i2 += k;
+            n -= k;
+        }
+        return true;
+    }
+
+    /**
+     * An immutable piece of text, weighted by its length in the queue of pieces
+     */
+    static final class Piece implements PDQueueFactory.Sized {
+        final String text;
+
+        Piece(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int size() {
+            return text.length();
+        }
+
+        /**
+         * Same as the hash code of a PDQueue of the characters, as required by PDQueueFactory.Digits
+         */
+        @Override
+        public int hashCode() {
+            int result = 47;
+            for (int i = 0; i < text.length(); i++) {
+                result = result * 97 + text.charAt(i);
+            }
+            return result;
+        }
+    }
+}
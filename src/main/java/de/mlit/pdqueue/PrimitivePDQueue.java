@@ -0,0 +1,484 @@
+package de.mlit.pdqueue;
+
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+/**
+ * Not public api. Common base of {@link IntPDQueue}, {@link LongPDQueue} and {@link DoublePDQueue}, which have the
+ * same structure and differ only in the type of the values held by the digits of the top level. Everything above
+ * these digits, the queues with left, middle and right part, iteration, splitting and hashing, is implemented here
+ * once in terms of a few accessors of the digits. The accessors pass values as 64 bits: an int widened to long, a
+ * long as it is and a double as its raw bits.
+ * @param <Q> the queue type of the value type
+ */
+abstract class PrimitivePDQueue<Q extends PrimitivePDQueue<Q>> implements PDQueueFactory.Sized {
+
+    PrimitivePDQueue() {
+    }
+
+    /**
+     * Gives the size of the queue, which is the number of values contained in it
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return kind();
+    }
+
+    /**
+     * Returns wether the queue is empty. q.isEmpty() returns the same result than q.size() == 0
+     * @return true, if the queue is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return false;
+    }
+
+    /**
+     * Gives the queue with the leftmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the leftmost value removed
+     */
+    public abstract Q tailL();
+
+    /**
+     * Gives the queue with the rightmost value removed.
+     * @throws NoSuchElementException if the queue is empty
+     * @return the queue with the rightmost value removed
+     */
+    public abstract Q tailR();
+
+    /**
+     * Gives the hash code 47*97^n + h(e0)*97^(n-1) + ... + h(en-1) of the n values of the queue, where h is the hash
+     * code of the boxed value. This is the hash code of a PDQueue of the boxed values. It is cached like the one of
+     * a PDQueue, so it is cheap for queues built from other queues whose hash code is already known.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return 47 * PDQueue.pow97(size()) + polyHash();
+    }
+
+    // the accessors of the digits
+
+    /**
+     * Not public api. Gives 0 to 4 for the digits holding that many values, and 5 for a queue with left, middle and
+     * right part
+     * @return the kind
+     */
+    abstract int kind();
+
+    /**
+     * Not public api. Gives the n-th value as 64 bits
+     * @param n the index, which must be valid
+     * @return the bits of the value
+     */
+    abstract long bitsAt(int n);
+
+    /**
+     * Not public api. Gives the hash code of the boxed value with the given bits
+     * @param bits the bits of the value
+     * @return the hash code
+     */
+    abstract int hashOf(long bits);
+
+    /**
+     * Not public api. Checks if the values with the given bits are equal, as the boxed values are
+     * @param bits1 the bits of the first value
+     * @param bits2 the bits of the second value
+     * @return true if the values are equal
+     */
+    boolean sameValue(long bits1, long bits2) {
+        return bits1 == bits2;
+    }
+
+    abstract Q consLBits(long e);
+
+    abstract Q consRBits(long e);
+
+    abstract Q emptyQ();
+
+    abstract Q pair(long e0, long e1);
+
+    /**
+     * Not public api. Gives the digit of count values of an array of the value type
+     * @param values the array
+     * @param from the index of the first value
+     * @param count the number of values, from 0 to 4
+     * @return the digit
+     */
+    abstract Q digit(Object values, int from, int count);
+
+    abstract Q complQ(Q left, PDQueue<Q> middle, Q right);
+
+    /**
+     * Not public api. Gives the left digit of a queue of kind 5. Only queues of kind 5 override the parts.
+     * @return the left digit
+     */
+    Q left() {
+        throw new IllegalStateException("not reachable");
+    }
+
+    /**
+     * Not public api. Gives the middle of a queue of kind 5, whose elements are digits weighted by their size
+     * @return the middle
+     */
+    PDQueue<Q> middle() {
+        throw new IllegalStateException("not reachable");
+    }
+
+    /**
+     * Not public api. Gives the right digit of a queue of kind 5
+     * @return the right digit
+     */
+    Q right() {
+        throw new IllegalStateException("not reachable");
+    }
+
+    // the operations above the digits
+
+    final long headLBits() {
+        switch (kind()) {
+            case 0:
+                throw new NoSuchElementException();
+            case 5:
+                return left().bitsAt(0);
+            default:
+                return bitsAt(0);
+        }
+    }
+
+    final long headRBits() {
+        int k = kind();
+        switch (k) {
+            case 0:
+                throw new NoSuchElementException();
+            case 5:
+                Q r = right();
+                return r.bitsAt(r.kind() - 1);
+            default:
+                return bitsAt(k - 1);
+        }
+    }
+
+    /**
+     * Not public api. Gives q with the values of this queue added to the left. Overridden by queues of kind 5.
+     * @param q the queue
+     * @return the queue with the values of this added
+     */
+    Q appendLTo(Q q) {
+        for (int i = kind() - 1; i >= 0; i--) {
+            q = q.consLBits(bitsAt(i));
+        }
+        return q;
+    }
+
+    /**
+     * Not public api. Gives q with the values of this queue added to the right. Overridden by queues of kind 5.
+     * @param q the queue
+     * @return the queue with the values of this added
+     */
+    Q appendRTo(Q q) {
+        for (int i = 0, k = kind(); i < k; i++) {
+            q = q.consRBits(bitsAt(i));
+        }
+        return q;
+    }
+
+    static <Q extends PrimitivePDQueue<Q>> Q concatenate(Q q1, Q q2) {
+        int k1 = q1.kind();
+        int k2 = q2.kind();
+        if (k1 < k2) {
+            return q1.appendLTo(q2);
+        } else if (k2 < 5) {
+            return q2.appendRTo(q1);
+        } else {
+            return q1.complQ(q1.left(), q1.packR().appendLTo(q2.packL()), q2.right());
+        }
+    }
+
+    /**
+     * Builds the queue of values[from..to) bottom up like PDQueue.fromArray. The values between the left and the
+     * right digit are packed into digits of two and three values, which are the elements of the middle.
+     */
+    final Q build(Object values, int from, int to) {
+        int n = to - from;
+        if (n <= 4) {
+            return digit(values, from, n);
+        }
+        int leftCount = n == 5 ? 3 : 2;
+        Q left = digit(values, from, leftCount);
+        Q right = digit(values, to - 2, 2);
+        Object[] digits = new Object[(n - leftCount - 2) / 2];
+        int i = from + leftCount;
+        int end = to - 2;
+        int j = 0;
+        while (i < end) {
+            int r = end - i;
+            int count = r == 2 || r == 4 ? 2 : 3;
+            digits[j++] = digit(values, i, count);
+            i += count;
+        }
+        @SuppressWarnings("unchecked")
+        PDQueue<Q> middle = PDQueue.build(PDQueueFactory.Digits.EMPTY, digits, 0, j, digits);
+        return complQ(left, middle, right);
+    }
+
+    // the operations of queues of kind 5
+
+    final long deepBitsAt(int n) {
+        Q left = left();
+        PDQueue<Q> middle = middle();
+        int m0 = left.size();
+        if (n < m0) {
+            return left.bitsAt(n);
+        }
+        int m1 = middle.size() + m0;
+        if (n >= m1) {
+            return right().bitsAt(n - m1);
+        }
+        // the elements of the middle are digits of this queue weighted by their size
+        PDQueue.Leaf leaf = PDQueue.leafAt(middle, n - m0, true);
+        return ((PrimitivePDQueue<?>) leaf.element).bitsAt(leaf.offset);
+    }
+
+    final Q deepConsL(long e) {
+        Q left = left();
+        switch (left.kind()) {
+            case 2:
+                return complQ(left.consLBits(e), middle(), right());
+            case 3:
+                return complQ(left.consLBits(e), middle().prepareConsL(), right());
+            case 4:
+                return complQ(pair(e, left.bitsAt(0)), middle().consL(left.tailL()), right());
+            default:
+                throw new IllegalStateException("not reachable");
+        }
+    }
+
+    final Q deepConsR(long e) {
+        Q right = right();
+        switch (right.kind()) {
+            case 2:
+                return complQ(left(), middle(), right.consRBits(e));
+            case 3:
+                return complQ(left(), middle().prepareConsR(), right.consRBits(e));
+            case 4:
+                return complQ(left(), middle().consR(right.tailR()), pair(right.bitsAt(3), e));
+            default:
+                throw new IllegalStateException("not reachable");
+        }
+    }
+
+    final Q deepTailL() {
+        Q left = left();
+        PDQueue<Q> middle = middle();
+        switch (left.kind()) {
+            case 2:
+                if (middle.isEmpty()) {
+                    return right().consLBits(left.bitsAt(1));
+                } else {
+                    return complQ(middle.headL().consLBits(left.bitsAt(1)), middle.tailL(), right());
+                }
+            case 3:
+                return complQ(left.tailL(), middle.prepareTailL(), right());
+            case 4:
+                return complQ(left.tailL(), middle, right());
+            default:
+                throw new IllegalStateException("not reachable");
+        }
+    }
+
+    final Q deepTailR() {
+        Q right = right();
+        PDQueue<Q> middle = middle();
+        switch (right.kind()) {
+            case 2:
+                if (middle.isEmpty()) {
+                    return left().consRBits(right.bitsAt(0));
+                } else {
+                    return complQ(left(), middle.tailR(), middle.headR().consRBits(right.bitsAt(0)));
+                }
+            case 3:
+                return complQ(left(), middle.prepareTailR(), right.tailR());
+            case 4:
+                return complQ(left(), middle, right.tailR());
+            default:
+                throw new IllegalStateException("not reachable");
+        }
+    }
+
+    final PDQueue<Q> packR() {
+        Q right = right();
+        switch (right.kind()) {
+            case 2:
+            case 3:
+                return middle().consR(right);
+            case 4:
+                return middle().consR(pair(right.bitsAt(0), right.bitsAt(1)))
+                        .consR(pair(right.bitsAt(2), right.bitsAt(3)));
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    final PDQueue<Q> packL() {
+        Q left = left();
+        switch (left.kind()) {
+            case 2:
+            case 3:
+                return middle().consL(left);
+            case 4:
+                return middle().consL(pair(left.bitsAt(2), left.bitsAt(3)))
+                        .consL(pair(left.bitsAt(0), left.bitsAt(1)));
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    // hashing and comparing
+
+    /**
+     * Not public api. Gives the polynomial hash h(e0)*97^(n-1) + ... + h(en-1) of the n values, see
+     * PDQueue.polyHash(). Queues of kind 5 cache it.
+     * @return the polynomial hash
+     */
+    int polyHash() {
+        int h = 0;
+        for (int i = 0, k = kind(); i < k; i++) {
+            h = h * 97 + hashOf(bitsAt(i));
+        }
+        return h;
+    }
+
+    /**
+     * Not public api. Gives the cached result of polyHash(), 0 if it is not yet computed or not cached
+     * @return the cached polynomial hash
+     */
+    int cachedHash() {
+        return 0;
+    }
+
+    /**
+     * Not public api. Computes the polynomial hash of a queue of kind 5 from the cached hashes of the nodes of the
+     * middle
+     * @return the polynomial hash
+     */
+    final int deepHash() {
+        Q left = left();
+        PDQueue<Q> middle = middle();
+        Q right = right();
+        int h = left.polyHash() * PDQueue.pow97(middle.size()) + middle.polyHash();
+        return h * PDQueue.pow97(right.size()) + right.polyHash();
+    }
+
+    /**
+     * Compares two queues value by value, unless their sizes or their cached hashes differ
+     */
+    static <Q extends PrimitivePDQueue<Q>> boolean equalValues(Q q1, Q q2) {
+        if (q1 == q2) {
+            return true;
+        } else if (q1.size() != q2.size()) {
+            return false;
+        }
+        int h1 = q1.cachedHash();
+        int h2 = q2.cachedHash();
+        if (h1 != 0 && h2 != 0 && h1 != h2) {
+            return false;
+        }
+        Cursor<Q> c1 = new Cursor<>(q1, false, false);
+        Cursor<Q> c2 = new Cursor<>(q2, false, false);
+        while (c1.hasNext()) {
+            if (!q1.sameValue(c1.nextBits(), c2.nextBits())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks over the values of the digits of the top level, which are taken from an iterator over the middle
+     * between the left and the right digit. The iterators and spliterators of the value types add the typed
+     * accessors. A cursor for a spliterator runs from left to right and splits by splitting the spliterator over the
+     * middle.
+     */
+    static class Cursor<Q extends PrimitivePDQueue<Q>> {
+        private Q digit;
+        private int pos;
+        private PDQueueIterator<Q> middle;
+        private Q last;
+        private boolean reverse;
+        int remaining;
+
+        Cursor() {
+        }
+
+        Cursor(Q q, boolean reverse, boolean split) {
+            this.reverse = reverse;
+            this.remaining = q.size();
+            if (q.kind() == 5) {
+                digit = reverse ? q.right() : q.left();
+                middle = split ? new PDQueueSpliterator<>(q.middle(), true)
+                        : new PDQueueIterator<>(q.middle(), reverse, true);
+                last = reverse ? q.left() : q.right();
+            } else {
+                digit = q;
+                last = q.emptyQ();
+            }
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final long nextBits() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            while (pos == digit.kind()) {
+                if (middle != null && middle.hasNext()) {
+                    digit = middle.next();
+                } else {
+                    digit = last;
+                    last = digit.emptyQ();
+                }
+                pos = 0;
+            }
+            remaining--;
+            return digit.bitsAt(reverse ? digit.kind() - 1 - pos++ : pos++);
+        }
+
+        /**
+         * Hands the values up to the end of a prefix of the middle over to an empty cursor
+         * @param prefix the empty cursor
+         * @return false if the cursor cannot be split
+         */
+        final boolean split(Cursor<Q> prefix) {
+            if (middle == null) {
+                return false;
+            }
+            Spliterator<Q> p = ((PDQueueSpliterator<Q>) middle).trySplit();
+            if (p == null) {
+                return false;
+            }
+            int n = digit.kind() - pos + (int) p.estimateSize();
+            prefix.digit = digit;
+            prefix.pos = pos;
+            prefix.middle = (PDQueueSpliterator<Q>) p;
+            prefix.last = digit.emptyQ();
+            prefix.remaining = n;
+            digit = digit.emptyQ();
+            pos = 0;
+            remaining -= n;
+            return true;
+        }
+
+        public long estimateSize() {
+            return remaining;
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED | Spliterator.IMMUTABLE
+                    | Spliterator.NONNULL;
+        }
+    }
+}
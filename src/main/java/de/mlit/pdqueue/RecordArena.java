@@ -0,0 +1,214 @@
+package de.mlit.pdqueue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append only storage for records of a fixed size in a memory mapped file. Records are numbered from 0 in the order
+ * they are added and never change afterwards, so they can be shared between persistent queues, see OffHeapPDQueue.
+ * The file is mapped in chunks, which are not part of the java heap.
+ * <p>
+ * Records are never freed, so the file grows with the number of records ever added, not with the number of records
+ * still used. Under churn, where queues keep adding records and dropping others, most of the file soon holds dead
+ * records. {@link OffHeapPDQueue#compact(RecordArena, OffHeapPDQueue...)} copies the records of the queues still in
+ * use into a fresh arena, after which the old one can be closed and its file deleted.
+ */
+public final class RecordArena implements Closeable {
+
+    private static final long MAGIC = 0x5044515265636f72L;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int RECORD_SIZE_OFFSET = 8;
+
+    private static final int COUNT_OFFSET = 16;
+
+    private static final int CHUNK_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final int recordSize;
+    private final int recordsPerChunk;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] chunks;
+    private volatile long count;
+
+    private RecordArena(FileChannel channel, int recordSize, long count) throws IOException {
+        this.channel = channel;
+        this.recordSize = recordSize;
+        this.recordsPerChunk = Math.max(1, CHUNK_SIZE / recordSize);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.count = count;
+        int n = (int) ((count + recordsPerChunk - 1) / recordsPerChunk);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[Math.max(n, 4)];
+        for (int i = 0; i < n; i++) {
+            chunks[i] = map(i);
+        }
+        this.chunks = chunks;
+    }
+
+    /**
+     * Creates a new arena in a file, replacing the contents of the file if it exists
+     * @param file the file
+     * @param recordSize the size of the records in bytes
+     * @return the arena
+     * @throws IOException if the file cannot be created
+     */
+    public static RecordArena create(Path file, int recordSize) throws IOException {
+        if (recordSize <= 0) {
+            throw new IllegalArgumentException("recordSize: " + recordSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        RecordArena arena = new RecordArena(channel, recordSize, 0);
+        arena.header.putLong(0, MAGIC);
+        arena.header.putInt(RECORD_SIZE_OFFSET, recordSize);
+        arena.header.putLong(COUNT_OFFSET, 0);
+        return arena;
+    }
+
+    /**
+     * Opens an arena created before
+     * @param file the file of the arena
+     * @return the arena with the records added before
+     * @throws IOException if the file cannot be opened or does not contain an arena
+     */
+    public static RecordArena open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        if (header.hasRemaining() || header.getLong(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a record arena: " + file);
+        }
+        return new RecordArena(channel, header.getInt(RECORD_SIZE_OFFSET), header.getLong(COUNT_OFFSET));
+    }
+
+    private MappedByteBuffer map(int chunk) throws IOException {
+        long size = (long) recordsPerChunk * recordSize;
+        return channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + chunk * size, size);
+    }
+
+    /**
+     * Gives the size of the records
+     * @return the size of the records in bytes
+     */
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Gives the number of records added
+     * @return the number of records
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Adds a record
+     * @param record the record, whose remaining bytes are copied, which must be recordSize()
+     * @return the index of the record
+     */
+    public synchronized long add(ByteBuffer record) {
+        if (record.remaining() != recordSize) {
+            throw new IllegalArgumentException("Record size " + record.remaining() + " instead of " + recordSize);
+        }
+        long index = count;
+        int chunk = (int) (index / recordsPerChunk);
+        MappedByteBuffer[] chunks = this.chunks;
+        if (chunk >= chunks.length || chunks[chunk] == null) {
+            if (chunk >= chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            try {
+                chunks[chunk] = map(chunk);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map record arena", e);
+            }
+            this.chunks = chunks;
+        }
+        ByteBuffer target = chunks[chunk].duplicate();
+        target.position((int) (index % recordsPerChunk) * recordSize);
+        target.put(record.duplicate());
+        header.putLong(COUNT_OFFSET, index + 1);
+        count = index + 1;
+        return index;
+    }
+
+    /**
+     * Gives a read only view of a record
+     * @param index the index of the record
+     * @return the view, positioned at the start of the record and limited to its end
+     * @throws IndexOutOfBoundsException if index&lt;0 or index&gt;=count()
+     */
+    public ByteBuffer get(long index) {
+        ByteBuffer b = chunk(index).duplicate();
+        int offset = (int) (index % recordsPerChunk) * recordSize;
+        b.limit(offset + recordSize);
+        b.position(offset);
+        return b.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Gives a long contained in a record, without creating a view
+     * @param index the index of the record
+     * @param offset the offset of the long in the record
+     * @return the long
+     * @throws IndexOutOfBoundsException if index&lt;0 or index&gt;=count()
+     */
+    public long getLong(long index, int offset) {
+        if (offset < 0 || offset > recordSize - 8) {
+            throw new IndexOutOfBoundsException("offset: " + offset);
+        }
+        return chunk(index).getLong((int) (index % recordsPerChunk) * recordSize + offset);
+    }
+
+    /**
+     * Gives an int contained in a record, without creating a view
+     * @param index the index of the record
+     * @param offset the offset of the int in the record
+     * @return the int
+     * @throws IndexOutOfBoundsException if index&lt;0 or index&gt;=count()
+     */
+    public int getInt(long index, int offset) {
+        if (offset < 0 || offset > recordSize - 4) {
+            throw new IndexOutOfBoundsException("offset: " + offset);
+        }
+        return chunk(index).getInt((int) (index % recordsPerChunk) * recordSize + offset);
+    }
+
+    private MappedByteBuffer chunk(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return chunks[(int) (index / recordsPerChunk)];
+    }
+
+    /**
+     * Writes the records added so far to the file
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            if (chunk != null) {
+                chunk.force();
+            }
+        }
+        header.force();
+    }
+
+    /**
+     * Writes the records to the file and closes it. The mapped chunks stay valid until they are garbage collected.
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,121 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Test cases for ChunkedPDQueue
+ */
+public class ChunkedPDQueueTest {
+
+    protected void assertQueue(LinkedList<Integer> vgl, ChunkedPDQueue<Integer> q) {
+        Assert.assertEquals(vgl.size(), q.size());
+        int i = 0;
+        for (Integer n : vgl) {
+            Assert.assertEquals(n, q.get(i++));
+        }
+        Assert.assertArrayEquals(vgl.toArray(), q.toArray());
+        Assert.assertArrayEquals(vgl.toArray(new Integer[0]), q.toArray(new Integer[0]));
+        List<Integer> list = new ArrayList<>();
+        for (Integer n : q) {
+            list.add(n);
+        }
+        Assert.assertEquals(vgl, list);
+        Assert.assertEquals(vgl, q.stream().collect(Collectors.toList()));
+        List<Integer> reverse = new ArrayList<>();
+        q.forEachRtoL(reverse::add);
+        Collections.reverse(reverse);
+        Assert.assertEquals(vgl, reverse);
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(23);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        ChunkedPDQueue<Integer> q = ChunkedPDQueue.empty();
+        for (int step = 0; step < 20000; step++) {
+            int n = random.nextInt(1000);
+            switch (random.nextInt(9)) {
+                case 0:
+                case 1:
+                case 2:
+                    vgl.addFirst(n);
+                    q = q.consL(n);
+                    break;
+                case 3:
+                case 4:
+                case 5:
+                    vgl.addLast(n);
+                    q = q.consR(n);
+                    break;
+                case 6:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals(vgl.pollFirst(), q.headL());
+                        q = q.tailL();
+                    }
+                    break;
+                case 7:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals(vgl.pollLast(), q.headR());
+                        q = q.tailR();
+                    }
+                    break;
+                default:
+                    List<Integer> other = new ArrayList<>();
+                    for (int k = random.nextInt(100); k > 0; k--) {
+                        other.add(k);
+                    }
+                    if (random.nextBoolean()) {
+                        q = ChunkedPDQueue.concat(q, ChunkedPDQueue.fromIterable(other));
+                        vgl.addAll(other);
+                    } else {
+                        q = ChunkedPDQueue.concat(ChunkedPDQueue.fromIterable(other), q);
+                        vgl.addAll(0, other);
+                    }
+                    break;
+            }
+            if (step % 1000 == 0) {
+                assertQueue(vgl, q);
+            }
+        }
+        assertQueue(vgl, q);
+        Assert.assertEquals(ChunkedPDQueue.fromIterable(vgl), q);
+        Assert.assertEquals(PDQueue.fromIterable(vgl).hashCode(), q.hashCode());
+    }
+
+    @Test
+    public void testSmall() {
+        ChunkedPDQueue<String> q = ChunkedPDQueue.of("a", "b", null);
+        Assert.assertEquals(3, q.size());
+        Assert.assertNull(q.headR());
+        Assert.assertEquals("b", q.tailR().headR());
+        Assert.assertTrue(q.tailL().tailL().tailL().isEmpty());
+        Assert.assertEquals(ChunkedPDQueue.empty(), ChunkedPDQueue.of());
+        Assert.assertNotEquals(q, q.tailR().consR("c"));
+    }
+
+    @Test
+    public void testFromIterable() {
+        for (int size : new int[] {0, 1, 31, 32, 33, 200, 5000, 100001}) {
+            LinkedList<Integer> vgl = new LinkedList<>();
+            ChunkedPDQueue<Integer> expected = ChunkedPDQueue.empty();
+            for (int i = 0; i < size; i++) {
+                vgl.add(i);
+                expected = expected.consR(i);
+            }
+            ChunkedPDQueue<Integer> q = ChunkedPDQueue.fromIterable(vgl);
+            assertQueue(vgl, q);
+            Assert.assertEquals(expected, q);
+            // an iterable which is no collection grows the array of chunks
+            assertQueue(vgl, ChunkedPDQueue.fromIterable(vgl::iterator));
+            Assert.assertEquals(vgl, q.consL(-1).tailL().stream().collect(Collectors.toList()));
+        }
+    }
+}
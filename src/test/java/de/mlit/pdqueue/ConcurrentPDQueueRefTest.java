@@ -0,0 +1,109 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test cases for ConcurrentPDQueueRef
+ */
+public class ConcurrentPDQueueRefTest {
+
+    @Test
+    public void testDeque() {
+        ConcurrentPDQueueRef<Integer> deque = new ConcurrentPDQueueRef<>();
+        deque.addLast(2);
+        deque.addFirst(1);
+        deque.offerLast(3);
+        deque.push(0);
+        deque.add(2);
+        PDQueue<Integer> snapshot = deque.snapshot();
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 2), new ArrayList<>(deque));
+        Assert.assertTrue(deque.removeLastOccurrence(2));
+        Assert.assertTrue(deque.removeFirstOccurrence(1));
+        Assert.assertFalse(deque.remove(7));
+        Assert.assertEquals(Arrays.asList(0, 2, 3), new ArrayList<>(deque));
+        Assert.assertEquals(PDQueue.of(0, 1, 2, 3, 2), snapshot);
+        Assert.assertEquals(0, (int) deque.pop());
+        Assert.assertEquals(3, (int) deque.pollLast());
+        Assert.assertEquals(2, (int) deque.peekFirst());
+        Assert.assertTrue(deque.contains(2));
+        Assert.assertTrue(deque.addAll(Arrays.asList(4, 5, 6)));
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals(2, deque.drainTo(drained, 2));
+        Assert.assertEquals(Arrays.asList(2, 4), drained);
+        Assert.assertEquals(2, deque.drainTo(drained));
+        Assert.assertTrue(deque.isEmpty());
+        Assert.assertNull(deque.poll());
+        Assert.assertNull(deque.peekLast());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNull() {
+        new ConcurrentPDQueueRef<Integer>().offerFirst(null);
+    }
+
+    @Test
+    public void testTimedPoll() throws InterruptedException {
+        ConcurrentPDQueueRef<Integer> deque = new ConcurrentPDQueueRef<>();
+        Assert.assertNull(deque.pollFirst(10, TimeUnit.MILLISECONDS));
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            deque.putLast(42);
+        });
+        producer.start();
+        Assert.assertEquals(42, (int) deque.takeLast());
+        producer.join();
+    }
+
+    @Test
+    public void testProducersAndConsumers() throws InterruptedException {
+        ConcurrentPDQueueRef<Integer> deque = new ConcurrentPDQueueRef<>();
+        int producers = 4;
+        int consumers = 4;
+        int perProducer = 20000;
+        AtomicLong sum = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            boolean left = p % 2 == 0;
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= perProducer; i++) {
+                    if (left) {
+                        deque.putFirst(i);
+                    } else {
+                        deque.putLast(i);
+                    }
+                }
+                done.countDown();
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            boolean left = c % 2 == 0;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        sum.addAndGet(left ? deque.takeFirst() : deque.takeLast());
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                done.countDown();
+            }));
+        }
+        threads.forEach(Thread::start);
+        Assert.assertTrue(done.await(60, TimeUnit.SECONDS));
+        Assert.assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+        Assert.assertTrue(deque.isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test cases for FlatCombiningPDQueue
+ */
+public class FlatCombiningPDQueueTest {
+
+    @Test
+    public void testDeque() {
+        FlatCombiningPDQueue<Integer> deque = new FlatCombiningPDQueue<>(PDQueue.of(2));
+        deque.offerFirst(1);
+        deque.offerLast(3);
+        deque.offerFirst(0);
+        Assert.assertEquals(PDQueue.of(0, 1, 2, 3), deque.snapshot());
+        Assert.assertEquals(0, (int) deque.pollFirst());
+        Assert.assertEquals(3, (int) deque.pollLast());
+        Assert.assertEquals(2, (int) deque.pollLast());
+        Assert.assertEquals(1, (int) deque.pollLast());
+        Assert.assertTrue(deque.isEmpty());
+        Assert.assertNull(deque.pollFirst());
+        Assert.assertNull(deque.pollLast());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNull() {
+        new FlatCombiningPDQueue<Integer>().offerLast(null);
+    }
+
+    @Test
+    public void testContention() throws InterruptedException {
+        FlatCombiningPDQueue<Integer> deque = new FlatCombiningPDQueue<>();
+        int threads = 16;
+        int perThread = 20000;
+        AtomicLong polled = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            workers.add(new Thread(() -> {
+                long sum = 0;
+                for (int i = 1; i <= perThread; i++) {
+                    int op = (seed + i) & 3;
+                    if (op == 0) {
+                        deque.offerFirst(i);
+                    } else if (op == 1) {
+                        deque.offerLast(i);
+                    } else {
+                        Integer e = op == 2 ? deque.pollFirst() : deque.pollLast();
+                        if (e != null) {
+                            sum += e;
+                        }
+                    }
+                }
+                polled.addAndGet(sum);
+                done.countDown();
+            }));
+        }
+        workers.forEach(Thread::start);
+        Assert.assertTrue(done.await(60, TimeUnit.SECONDS));
+        long offered = 0;
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i <= perThread; i++) {
+                if (((t + i) & 3) < 2) {
+                    offered += i;
+                }
+            }
+        }
+        long remaining = 0;
+        for (int e : deque.snapshot()) {
+            remaining += e;
+        }
+        Assert.assertEquals(offered, polled.get() + remaining);
+    }
+}
@@ -0,0 +1,145 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Test cases for MeasuredPDQueue
+ */
+public class MeasuredPDQueueTest {
+
+    static final MeasuredPDQueue.Measure<Integer, Long> SUM = new MeasuredPDQueue.Measure<Integer, Long>() {
+        @Override
+        public Long identity() {
+            return 0L;
+        }
+
+        @Override
+        public Long of(Integer e) {
+            return (long) e;
+        }
+
+        @Override
+        public Long combine(Long m1, Long m2) {
+            return m1 + m2;
+        }
+    };
+
+    static final MeasuredPDQueue.Measure<Integer, Integer> MAX = new MeasuredPDQueue.Measure<Integer, Integer>() {
+        @Override
+        public Integer identity() {
+            return Integer.MIN_VALUE;
+        }
+
+        @Override
+        public Integer of(Integer e) {
+            return e;
+        }
+
+        @Override
+        public Integer combine(Integer m1, Integer m2) {
+            return Math.max(m1, m2);
+        }
+    };
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(37);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        MeasuredPDQueue<Integer, Long> q = MeasuredPDQueue.empty(SUM);
+        for (int step = 0; step < 5000; step++) {
+            int n = random.nextInt(100);
+            switch (random.nextInt(7)) {
+                case 0:
+                case 1:
+                    q = q.consL(n);
+                    vgl.addFirst(n);
+                    break;
+                case 2:
+                case 3:
+                    q = q.consR(n);
+                    vgl.addLast(n);
+                    break;
+                case 4:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals(vgl.removeFirst(), q.headL());
+                        q = q.tailL();
+                    }
+                    break;
+                case 5:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals(vgl.removeLast(), q.headR());
+                        q = q.tailR();
+                    }
+                    break;
+                default:
+                    MeasuredPDQueue<Integer, Long> q2 = MeasuredPDQueue.empty(SUM);
+                    for (int k = random.nextInt(30); k > 0; k--) {
+                        q2 = q2.consR(k);
+                        vgl.addLast(k);
+                    }
+                    q = MeasuredPDQueue.concat(q, q2);
+                    break;
+            }
+            if (step % 250 == 0) {
+                assertSums(vgl, q, random);
+            }
+        }
+        assertSums(vgl, q, random);
+        Assert.assertEquals(vgl, q.stream().collect(Collectors.toList()));
+    }
+
+    private void assertSums(List<Integer> vgl, MeasuredPDQueue<Integer, Long> q, Random random) {
+        long[] prefix = new long[vgl.size() + 1];
+        int i = 0;
+        for (int n : vgl) {
+            prefix[i + 1] = prefix[i] + n;
+            i++;
+        }
+        Assert.assertEquals(prefix[vgl.size()], (long) q.measure());
+        for (int k = 0; k < 20 && !vgl.isEmpty(); k++) {
+            long target = random.nextInt((int) prefix[vgl.size()] + 2);
+            int expected = -1;
+            for (int j = 1; j <= vgl.size(); j++) {
+                if (prefix[j] > target) {
+                    expected = j - 1;
+                    break;
+                }
+            }
+            Assert.assertEquals(expected, q.search(m -> m > target));
+            MeasuredPDQueue.Split<Integer, Long> split = q.splitWhere(m -> m > target);
+            int n = expected < 0 ? vgl.size() : expected;
+            Assert.assertEquals(n, split.left().size());
+            Assert.assertEquals(prefix[n], (long) split.left().measure());
+            Assert.assertEquals(prefix[vgl.size()] - prefix[n], (long) split.right().measure());
+        }
+    }
+
+    @Test
+    public void testPriorityQueue() {
+        MeasuredPDQueue<Integer, Integer> q = MeasuredPDQueue.empty(MAX);
+        Random random = new Random(41);
+        List<Integer> vgl = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int n = random.nextInt(100000);
+            q = q.consR(n);
+            vgl.add(n);
+        }
+        while (!q.isEmpty()) {
+            int max = q.measure();
+            int i = q.search(m -> m >= max);
+            Assert.assertEquals(vgl.indexOf(max), i);
+            Assert.assertEquals(max, (int) q.get(i));
+            q = q.removeAt(i);
+            vgl.remove(i);
+            Assert.assertEquals(vgl.isEmpty() ? Integer.MIN_VALUE : (int) vgl.stream().max(Integer::compare).get(),
+                    (int) q.measure());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Test cases for OffHeapPDQueue and RecordArena
+ */
+public class OffHeapPDQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ByteBuffer record(long n) {
+        ByteBuffer b = ByteBuffer.allocate(24);
+        b.putLong(n).putLong(-n).putLong(n * n);
+        b.flip();
+        return b;
+    }
+
+    private static void assertQueue(LinkedList<Long> vgl, OffHeapPDQueue q) {
+        Assert.assertEquals(vgl.size(), q.size());
+        int i = 0;
+        for (long n : vgl) {
+            Assert.assertEquals(record(n), q.get(i++));
+        }
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        Path file = folder.newFile("arena").toPath();
+        Random random = new Random(3);
+        LinkedList<Long> vgl = new LinkedList<>();
+        byte[] stored;
+        try (RecordArena arena = RecordArena.create(file, 24)) {
+            OffHeapPDQueue q = OffHeapPDQueue.empty(arena);
+            for (long n = 0; n < 5000; n++) {
+                switch (random.nextInt(5)) {
+                    case 0:
+                    case 1:
+                        q = q.consL(record(n));
+                        vgl.addFirst(n);
+                        break;
+                    case 2:
+                        q = q.consR(record(n));
+                        vgl.addLast(n);
+                        break;
+                    case 3:
+                        if (!vgl.isEmpty()) {
+                            Assert.assertEquals(record(vgl.removeFirst()), q.headL());
+                            q = q.tailL();
+                        }
+                        break;
+                    default:
+                        if (!vgl.isEmpty()) {
+                            Assert.assertEquals(record(vgl.removeLast()), q.headR());
+                            q = q.tailR();
+                        }
+                        break;
+                }
+            }
+            q = OffHeapPDQueue.concat(q, q);
+            vgl.addAll(new LinkedList<>(vgl));
+            assertQueue(vgl, q);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            q.store(new DataOutputStream(bytes));
+            stored = bytes.toByteArray();
+        }
+        try (RecordArena arena = RecordArena.open(file)) {
+            Assert.assertEquals(24, arena.recordSize());
+            Assert.assertTrue(arena.count() >= vgl.size() / 2);
+            OffHeapPDQueue q = OffHeapPDQueue.load(arena, new DataInputStream(new ByteArrayInputStream(stored)));
+            assertQueue(vgl, q);
+            long n = vgl.getFirst();
+            long index = q.indices().headLLong();
+            Assert.assertEquals(-n, arena.getLong(index, 8));
+            Assert.assertEquals((int) (n * n), arena.getInt(index, 20));
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        try (RecordArena arena = RecordArena.create(folder.newFile("arena").toPath(), 24);
+             RecordArena compacted = RecordArena.create(folder.newFile("compacted").toPath(), 24)) {
+            OffHeapPDQueue q1 = OffHeapPDQueue.empty(arena);
+            LinkedList<Long> vgl1 = new LinkedList<>();
+            // churn: each record is dropped again soon after it was added
+            for (long n = 0; n < 3000; n++) {
+                q1 = q1.consR(record(n));
+                vgl1.addLast(n);
+                if (n % 3 != 0) {
+                    q1 = q1.tailL();
+                    vgl1.removeFirst();
+                }
+            }
+            OffHeapPDQueue q2 = OffHeapPDQueue.concat(q1.tailR(), q1);
+            LinkedList<Long> vgl2 = new LinkedList<>(vgl1);
+            vgl2.removeLast();
+            vgl2.addAll(vgl1);
+            OffHeapPDQueue[] result = OffHeapPDQueue.compact(compacted, q1, q2);
+            Assert.assertEquals(3000, arena.count());
+            Assert.assertEquals(vgl1.size(), compacted.count());
+            Assert.assertSame(compacted, result[0].arena());
+            assertQueue(vgl1, result[0]);
+            assertQueue(vgl2, result[1]);
+            // the copies keep the order of the originals
+            for (int i = 0; i < vgl1.size(); i++) {
+                Assert.assertEquals(i, result[0].indices().getLong(i));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongRecordSize() throws IOException {
+        try (RecordArena arena = RecordArena.create(folder.newFile("arena").toPath(), 16)) {
+            OffHeapPDQueue.empty(arena).consL(record(1));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAnArena() throws IOException {
+        RecordArena.open(folder.newFile("empty").toPath());
+    }
+}
@@ -0,0 +1,106 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Test cases for PDQueueCodec
+ */
+public class PDQueueCodecTest {
+
+    private static void writeInt(DataOutput out, Integer n) throws IOException {
+        out.writeInt(n);
+    }
+
+    private static Integer readInt(DataInput in) throws IOException {
+        return in.readInt();
+    }
+
+    private static byte[] write(List<PDQueue<Integer>> queues, boolean deduplicate) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        PDQueueCodec.Writer<Integer> writer = PDQueueCodec.writer(out, PDQueueCodecTest::writeInt, deduplicate);
+        for (PDQueue<Integer> q : queues) {
+            writer.write(q);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<PDQueue<Integer>> read(byte[] bytes, int count) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        PDQueueCodec.Reader<Integer> reader = PDQueueCodec.reader(in, PDQueueCodecTest::readInt);
+        List<PDQueue<Integer>> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(reader.read());
+        }
+        Assert.assertEquals(-1, in.read());
+        return result;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(5);
+        for (int size : new int[] {0, 1, 4, 5, 17, 1000, 20000}) {
+            PDQueue<Integer> q = PDQueue.empty();
+            LinkedList<Integer> vgl = new LinkedList<>();
+            for (int i = 0; i < size; i++) {
+                if (random.nextBoolean()) {
+                    q = q.consL(i);
+                    vgl.addFirst(i);
+                } else {
+                    q = q.consR(i);
+                    vgl.addLast(i);
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PDQueueCodec.write(new DataOutputStream(bytes), q, PDQueueCodecTest::writeInt);
+            PDQueue<Integer> r = PDQueueCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                    PDQueueCodecTest::readInt);
+            Assert.assertEquals(q, r);
+            Assert.assertEquals(vgl, r.stream().collect(Collectors.toList()));
+            Assert.assertEquals(q.consR(-2), r.consL(-1).consR(-2).tailL());
+        }
+    }
+
+    @Test
+    public void testDeduplication() throws IOException {
+        List<PDQueue<Integer>> versions = new ArrayList<>();
+        PDQueue<Integer> q = PDQueue.empty();
+        for (int i = 0; i < 10000; i++) {
+            q = q.consR(i);
+        }
+        for (int i = 0; i < 20; i++) {
+            versions.add(q);
+            q = q.consL(-i).set(5000, i).tailR();
+        }
+        byte[] plain = write(versions, false);
+        byte[] deduplicated = write(versions, true);
+        Assert.assertTrue(deduplicated.length * 5 < plain.length);
+        List<PDQueue<Integer>> read = read(deduplicated, versions.size());
+        Assert.assertEquals(versions, read);
+        Assert.assertEquals(versions, read(plain, versions.size()));
+        PDQueue.DQn<Integer> r0 = (PDQueue.DQn<Integer>) read.get(0);
+        PDQueue.DQn<Integer> r1 = (PDQueue.DQn<Integer>) read.get(1);
+        Assert.assertSame(r0.middle.headR(), r1.middle.headR());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidInput() throws IOException {
+        PDQueueCodec.read(new DataInputStream(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5})),
+                PDQueueCodecTest::readInt);
+    }
+}
@@ -0,0 +1,55 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.Arrays;
+
+/**
+ * Measures the memory retained by the nodes of queues with JOL. All queues contain the same element object, so
+ * only the nodes are counted.
+ */
+public class PDQueueFootprintTest {
+
+    private static final Object ELEMENT = new Object();
+
+    private static double bytesPerElement(PDQueue<?> q) {
+        long total = GraphLayout.parseInstance(q, ELEMENT).totalSize();
+        return (double) (total - GraphLayout.parseInstance(ELEMENT).totalSize()) / q.size();
+    }
+
+    private static long instanceSize(Class<?> c) {
+        return ClassLayout.parseClass(c).instanceSize();
+    }
+
+    @Test
+    public void testTopDigitsAreSmaller() {
+        Assert.assertTrue(instanceSize(PDQueueFactory.Top.Q1.class) < instanceSize(PDQueueFactory.Nest.Q1.class));
+        Assert.assertTrue(instanceSize(PDQueueFactory.Top.Q2.class) < instanceSize(PDQueueFactory.Nest.Q2.class));
+        Assert.assertTrue(instanceSize(PDQueueFactory.Top.Q3.class) < instanceSize(PDQueueFactory.Nest.Q3.class));
+        Assert.assertTrue(instanceSize(PDQueueFactory.Top.Q4.class) < instanceSize(PDQueueFactory.Nest.Q4.class));
+    }
+
+    @Test
+    public void testBytesPerElement() {
+        // the bounds assume compressed references, as used for heaps below 32 GB
+        Assume.assumeTrue(VM.current().sizeOfField("java.lang.Object") == 4);
+        for (int size : new int[] {10000, 1000000}) {
+            Object[] elements = new Object[size];
+            Arrays.fill(elements, ELEMENT);
+            PDQueue<Object> packed = PDQueue.of(elements);
+            PDQueue<Object> grown = PDQueue.empty();
+            for (int i = 0; i < size; i++) {
+                grown = i % 2 == 0 ? grown.consR(ELEMENT) : grown.consL(ELEMENT);
+            }
+            double packedBytes = bytesPerElement(packed);
+            double grownBytes = bytesPerElement(grown);
+            Assert.assertTrue("packed " + size + ": " + packedBytes, packedBytes < 14);
+            Assert.assertTrue("grown " + size + ": " + grownBytes, grownBytes < 19.5);
+        }
+    }
+}
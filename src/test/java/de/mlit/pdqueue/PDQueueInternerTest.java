@@ -0,0 +1,52 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test cases for PDQueueInterner
+ */
+public class PDQueueInternerTest {
+
+    @Test
+    public void testIntern() {
+        List<Integer> elements = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            elements.add(i % 7);
+        }
+        PDQueueInterner interner = new PDQueueInterner();
+        PDQueue<Integer> q1 = PDQueue.fromIterable(elements);
+        PDQueue<Integer> q2 = PDQueue.fromIterable(new ArrayList<>(elements));
+        Assert.assertNotSame(q1, q2);
+        PDQueue<Integer> i1 = interner.intern(q1);
+        PDQueue<Integer> i2 = interner.intern(q2);
+        Assert.assertSame(i1, i2);
+        Assert.assertEquals(q1, i1);
+        Assert.assertSame(i1, interner.intern(i1));
+        // the repeating pattern leaves only few distinct nodes
+        Assert.assertTrue(interner.size() < 200);
+
+        PDQueue<Integer> derived = interner.intern(q1.consL(-1).tailR());
+        Assert.assertEquals(q1.consL(-1).tailR(), derived);
+        PDQueue<Integer> built = PDQueue.empty();
+        for (int e : elements) {
+            built = built.consR(e);
+        }
+        Assert.assertEquals(q1, interner.intern(built));
+    }
+
+    @Test
+    public void testReversedAndNested() {
+        PDQueueInterner interner = new PDQueueInterner();
+        PDQueue<Integer> q = PDQueue.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        PDQueue<Integer> r = interner.intern(q.reversed());
+        Assert.assertEquals(q.reversed(), r);
+        Assert.assertSame(interner.intern(q), r.reversed());
+        PDQueue<PDQueue<Integer>> nested = PDQueue.of(PDQueue.of(1, 2), PDQueue.of(3));
+        Assert.assertEquals(nested, interner.intern(nested));
+        Assert.assertSame(PDQueue.empty(), interner.intern(PDQueue.empty()));
+    }
+}
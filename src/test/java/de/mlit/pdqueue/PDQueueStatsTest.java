@@ -0,0 +1,95 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.Arrays;
+
+/**
+ * Test cases for PDQueueStats
+ */
+public class PDQueueStatsTest {
+
+    private static final Object ELEMENT = new Object();
+
+    private static PDQueue<Object> queue(int size) {
+        Object[] elements = new Object[size];
+        Arrays.fill(elements, ELEMENT);
+        return PDQueue.of(elements);
+    }
+
+    @Test
+    public void testStats() {
+        PDQueue<Object> q = queue(100000);
+        PDQueueStats stats = PDQueueStats.of(q);
+        Assert.assertEquals(100000, stats.size());
+        Assert.assertTrue(stats.depth() > 5 && stats.depth() < 15);
+        long total = 0;
+        for (int level = 0; level < stats.depth(); level++) {
+            Assert.assertTrue(stats.nodeCount(level) > 0);
+            total += stats.nodeCount(level);
+        }
+        Assert.assertEquals(stats.nodeCount(), total);
+        // packing builds the nodes of level 0 mostly from triples
+        Assert.assertTrue(stats.kindCount(0, 3) > 30000);
+        Assert.assertEquals(0, stats.nodeCount(stats.depth()));
+        Assert.assertEquals(stats.nodeCount(), PDQueueStats.of(q.reversed()).nodeCount());
+
+        PDQueueStats empty = PDQueueStats.of(PDQueue.empty());
+        Assert.assertEquals(0, empty.depth());
+        Assert.assertEquals(0, empty.nodeCount());
+    }
+
+    @Test
+    public void testEstimatedBytes() {
+        Assume.assumeTrue(VM.current().sizeOfField("java.lang.Object") == 4);
+        PDQueue<Object> q = queue(10000).consL(ELEMENT).tailR().consR(ELEMENT);
+        long measured = GraphLayout.parseInstance(q, ELEMENT).totalSize()
+                - GraphLayout.parseInstance(ELEMENT).totalSize();
+        // JOL also counts the shared empty nodes
+        long estimated = PDQueueStats.of(q).estimatedBytes();
+        Assert.assertTrue(estimated + " vs " + measured, estimated <= measured && measured - estimated <= 64);
+    }
+
+    @Test
+    public void testSharing() {
+        PDQueue<Object> q1 = queue(100000);
+        PDQueue<Object> q2 = q1.consR(ELEMENT).tailL();
+        long nodes1 = PDQueueStats.of(q1).nodeCount();
+        Assert.assertEquals(nodes1, PDQueueStats.sharedNodes(q1, q1));
+        Assert.assertEquals(0, PDQueueStats.uniqueBytes(q1, q1));
+        long shared = PDQueueStats.sharedNodes(q1, q2);
+        Assert.assertTrue(shared > nodes1 - 100);
+        Assert.assertTrue(PDQueueStats.uniqueBytes(q1, q2) < 2000);
+        PDQueue<Object> concat = PDQueue.concat(q1, q1);
+        Assert.assertTrue(PDQueueStats.of(concat).nodeCount() < nodes1 + 100);
+        Assert.assertEquals(0, PDQueueStats.sharedNodes(q1, queue(100000)));
+    }
+
+    @Test
+    public void testReversedNodes() {
+        PDQueue<Integer> q = PDQueue.of();
+        for (int i = 0; i < 30; i++) {
+            Integer[] elements = new Integer[1000 + i * 37];
+            Arrays.fill(elements, i);
+            q = PDQueue.concat(q, PDQueue.of(elements).reversed());
+            if (i % 3 == 0) {
+                q = q.reversed();
+            }
+        }
+        PDQueueStats stats = PDQueueStats.of(q);
+        Assert.assertEquals(stats.nodeCount(), PDQueueStats.sharedNodes(q, q));
+        Assert.assertEquals(0, PDQueueStats.uniqueBytes(q, q));
+        Assert.assertEquals(stats.nodeCount(), PDQueueStats.of(q).nodeCount());
+        Assert.assertEquals(stats.estimatedBytes(), PDQueueStats.of(q).estimatedBytes());
+        PDQueue<Integer> p = queue(5000).map(e -> 1);
+        PDQueue<Integer> concat = PDQueue.concat(q, p.reversed());
+        long nodes = PDQueueStats.of(concat).nodeCount();
+        Assert.assertEquals(nodes, PDQueueStats.sharedNodes(concat, concat));
+        // the reversed queue shares all nodes of p below the spine
+        Assert.assertTrue(PDQueueStats.sharedNodes(p, concat) > PDQueueStats.of(p).nodeCount() - 100);
+    }
+}
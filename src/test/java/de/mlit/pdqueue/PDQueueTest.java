@@ -4,6 +4,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Test cases for PDQueue
@@ -164,6 +167,25 @@ public class PDQueueTest {
         }
     }
 
+    @Test
+    public void testGet() {
+        Random random = new Random(7);
+        LinkedList<Integer> vgl1 = new LinkedList<>();
+        LinkedList<Integer> vgl2 = new LinkedList<>();
+        PDQueue<Integer> dq = PDQueue.concat(randomQueue(random, 3000, vgl1), randomQueue(random, 5000, vgl2));
+        List<Integer> vgl = new ArrayList<>(vgl1);
+        vgl.addAll(vgl2);
+        for(int i=0; i<vgl.size(); i++) {
+            Assert.assertEquals(vgl.get(i), dq.get(i));
+        }
+        try {
+            dq.get(vgl.size());
+            Assert.fail();
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+    }
+
     @Test
     public void testEquals() {
         PDQueue<Integer> q1 = PDQueue.<Integer>empty().consConsR(1,2).consConsR(3,null).consR(4).consConsR(5,6);
@@ -177,6 +199,599 @@ public class PDQueueTest {
         Assert.assertNotEquals(q1.hashCode(), q3.hashCode());
     }
 
+    @Test
+    public void testHashCodeAndEqualsOfDerivedQueues() {
+        Random random = new Random(29);
+        LinkedList<Integer> vgl1 = new LinkedList<>();
+        LinkedList<Integer> vgl2 = new LinkedList<>();
+        PDQueue<Integer> q1 = randomQueue(random, 5000, vgl1);
+        PDQueue<Integer> q2 = randomQueue(random, 3000, vgl2);
+        int expected = 47;
+        for (int n : vgl1) {
+            expected = expected * 97 + n;
+        }
+        Assert.assertEquals(expected, q1.hashCode());
+        PDQueue<Integer> concat = PDQueue.concat(q1, q2);
+        vgl1.addAll(vgl2);
+        PDQueue<Integer> flat = PDQueue.fromIterable(vgl1);
+        Assert.assertEquals(flat.hashCode(), concat.hashCode());
+        Assert.assertEquals(flat, concat);
+        Assert.assertEquals(concat, flat);
+        PDQueue<Integer> changed = concat.set(4321, -1);
+        Assert.assertNotEquals(concat, changed);
+        Assert.assertNotEquals(changed, flat);
+        Assert.assertNotEquals(concat.hashCode(), changed.hashCode());
+        Assert.assertEquals(changed.set(4321, vgl1.get(4321)), flat);
+        Assert.assertEquals(concat.consL(7).tailL(), concat.tailR().consR(vgl1.getLast()));
+    }
+
+    protected PDQueue<Integer> randomQueue(Random random, int size, LinkedList<Integer> vgl) {
+        PDQueue<Integer> dq = PDQueue.empty();
+        for(int i=0; i<size; i++) {
+            if(random.nextBoolean()) {
+                dq = dq.consL(i);
+                vgl.addFirst(i);
+            } else {
+                dq = dq.consR(i);
+                vgl.addLast(i);
+            }
+            if(random.nextInt(10) == 0 && !dq.isEmpty()) {
+                dq = dq.tailL();
+                vgl.removeFirst();
+            }
+        }
+        return dq;
+    }
+
+    @Test
+    public void testSplitAt() {
+        Random random = new Random(17);
+        for(int size : new int[] {0, 1, 2, 5, 9, 31, 100, 1000, 5000}) {
+            LinkedList<Integer> vgl = new LinkedList<>();
+            PDQueue<Integer> dq = randomQueue(random, size, vgl);
+            for(int k=0; k<40; k++) {
+                int n = random.nextInt(dq.size()+1);
+                PDQueue.Split<Integer> split = dq.splitAt(n);
+                assertQueue(new LinkedList<>(vgl.subList(0, n)), split.left());
+                assertQueue(new LinkedList<>(vgl.subList(n, vgl.size())), split.right());
+                assertQueue(new LinkedList<>(vgl.subList(0, n)), dq.take(n));
+                assertQueue(new LinkedList<>(vgl.subList(n, vgl.size())), dq.drop(n));
+
+                LinkedList<Integer> vgl2 = new LinkedList<>(vgl.subList(n, vgl.size()));
+                vgl2.addFirst(-1);
+                vgl2.addLast(-2);
+                assertQueue(vgl2, split.right().consL(-1).consR(-2));
+                assertQueue(vgl, PDQueue.concat(split.left(), split.right()));
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSplitAtOutOfBounds() {
+        PDQueue.<Integer>empty().consR(1).consR(2).splitAt(3);
+    }
+
+    @Test
+    public void testRepeatedSplit() {
+        Random random = new Random(4711);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = randomQueue(random, 20000, vgl);
+        while(dq.size() > 1) {
+            int n = 1 + random.nextInt(dq.size()-1);
+            PDQueue.Split<Integer> split = dq.splitAt(n);
+            if(random.nextBoolean()) {
+                dq = split.left();
+                vgl = new LinkedList<>(vgl.subList(0, n));
+            } else {
+                dq = split.right();
+                vgl = new LinkedList<>(vgl.subList(n, vgl.size()));
+            }
+            assertQueue(vgl, dq);
+        }
+    }
+
+    @Test
+    public void testIterator() {
+        Random random = new Random(5);
+        for(int size : new int[] {0, 1, 3, 4, 5, 17, 1000, 10000}) {
+            LinkedList<Integer> vgl = new LinkedList<>();
+            PDQueue<Integer> dq = randomQueue(random, size, vgl);
+            List<Integer> forward = new ArrayList<>();
+            for(Integer i : dq) {
+                forward.add(i);
+            }
+            Assert.assertEquals(vgl, forward);
+            List<Integer> backward = new ArrayList<>();
+            dq.descendingIterator().forEachRemaining(backward::add);
+            Collections.reverse(backward);
+            Assert.assertEquals(vgl, backward);
+            List<Integer> rest = new ArrayList<>();
+            Iterator<Integer> it = dq.iterator();
+            for(int i=0; i<size/2 && it.hasNext(); i++) {
+                rest.add(it.next());
+            }
+            it.forEachRemaining(rest::add);
+            Assert.assertEquals(vgl, rest);
+        }
+    }
+
+    @Test
+    public void testSpliterator() {
+        Random random = new Random(6);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = randomQueue(random, 100000, vgl);
+        Spliterator<Integer> s1 = dq.spliterator();
+        Spliterator<Integer> s0 = s1.trySplit();
+        Assert.assertEquals(dq.size() / 2, s0.estimateSize());
+        Assert.assertEquals(dq.size() - dq.size() / 2, s1.estimateSize());
+        List<Integer> list = new ArrayList<>();
+        s0.forEachRemaining(list::add);
+        s1.forEachRemaining(list::add);
+        Assert.assertEquals(vgl, list);
+
+        Assert.assertEquals(vgl, dq.parallelStream().collect(Collectors.toList()));
+        Assert.assertEquals(vgl.stream().mapToLong(i -> i).sum(), dq.parallelStream().mapToLong(i -> i).sum());
+    }
+
+    @Test
+    public void testBuilder() {
+        for(int size=0; size<300; size++) {
+            PDQueue.Builder<Integer> builder = PDQueue.builder();
+            LinkedList<Integer> vgl = new LinkedList<>();
+            for(int i=0; i<size; i++) {
+                builder.add(i);
+                vgl.add(i);
+            }
+            PDQueue<Integer> dq = builder.build();
+            assertQueue(vgl, dq);
+            for(int i=0; i<size; i++) {
+                Assert.assertEquals(i, (int)dq.get(i));
+            }
+            LinkedList<Integer> vgl2 = new LinkedList<>(vgl);
+            PDQueue<Integer> dq2 = dq;
+            while(!vgl2.isEmpty()) {
+                Assert.assertEquals(vgl2.pollLast(), dq2.headR());
+                dq2 = dq2.tailR();
+                assertQueue(vgl2, dq2);
+            }
+            builder.add(-1);
+            vgl.add(-1);
+            assertQueue(vgl, builder.build());
+        }
+    }
+
+    @Test
+    public void testBuilderAddAll() {
+        Random random = new Random(8);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = randomQueue(random, 1000, vgl);
+        PDQueue.Builder<Integer> builder = dq.toBuilder();
+        for(int i=0; i<100000; i++) {
+            builder.add(i);
+            vgl.add(i);
+        }
+        builder.addAll(dq);
+        vgl.addAll(new ArrayList<>(vgl.subList(0, dq.size())));
+        builder.addAll(Arrays.asList(1, 2, 3));
+        vgl.addAll(Arrays.asList(1, 2, 3));
+        PDQueue<Integer> result = builder.build();
+        assertQueue(vgl, result);
+        assertQueue(vgl, result.consL(0).consR(0).tailL().tailR());
+    }
+
+    @Test
+    public void testFromArray() {
+        for(int size=0; size<200; size++) {
+            Integer[] array = new Integer[size + 2];
+            LinkedList<Integer> vgl = new LinkedList<>();
+            for(int i=0; i<array.length; i++) {
+                array[i] = i;
+                if(i>0 && i<=size) {
+                    vgl.add(i);
+                }
+            }
+            PDQueue<Integer> dq = PDQueue.fromArray(array, 1, size + 1);
+            assertQueue(vgl, dq);
+            LinkedList<Integer> vgl2 = new LinkedList<>(vgl);
+            while(!vgl2.isEmpty()) {
+                Assert.assertEquals(vgl2.pollLast(), dq.headR());
+                dq = dq.tailR();
+            }
+            Assert.assertTrue(dq.isEmpty());
+        }
+        assertQueue(new LinkedList<>(Arrays.asList(3, 1, 2)), PDQueue.of(3, 1, 2));
+    }
+
+    @Test
+    public void testFromIterable() {
+        List<Integer> list = new ArrayList<>();
+        for(int i=0; i<100000; i++) {
+            list.add(i);
+        }
+        PDQueue<Integer> dq = PDQueue.fromIterable(list);
+        assertQueue(new LinkedList<>(list), dq);
+        Assert.assertSame(dq, PDQueue.fromIterable(dq));
+        assertQueue(new LinkedList<>(list), PDQueue.fromIterable(list::iterator));
+        assertQueue(new LinkedList<>(list), list.parallelStream().collect(PDQueue.collector()));
+        Assert.assertEquals(dq, list.stream().collect(PDQueue.collector()));
+    }
+
+    @Test
+    public void testSetInsertRemove() {
+        Random random = new Random(9);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = randomQueue(random, 500, vgl);
+        for(int k=0; k<3000; k++) {
+            int r = random.nextInt(3);
+            if(r == 0 && !vgl.isEmpty()) {
+                int n = random.nextInt(vgl.size());
+                PDQueue<Integer> dq1 = dq.set(n, -k);
+                vgl.set(n, -k);
+                Assert.assertNotEquals(dq, dq1);
+                dq = dq1;
+            } else if(r == 1) {
+                int n = random.nextInt(vgl.size() + 1);
+                dq = dq.insertAt(n, k);
+                vgl.add(n, k);
+            } else if(!vgl.isEmpty()) {
+                int n = random.nextInt(vgl.size());
+                dq = dq.removeAt(n);
+                vgl.remove(n);
+            }
+            if(k % 50 == 0) {
+                assertQueue(vgl, dq);
+            }
+        }
+        assertQueue(vgl, dq);
+    }
+
+    @Test
+    public void testReversed() {
+        Random random = new Random(31);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = randomQueue(random, 3000, vgl).reversed();
+        Collections.reverse(vgl);
+        assertQueue(vgl, dq);
+        Assert.assertEquals(PDQueue.fromIterable(vgl), dq);
+        Assert.assertEquals(dq, PDQueue.fromIterable(vgl));
+        Assert.assertEquals(PDQueue.fromIterable(vgl).hashCode(), dq.hashCode());
+        Assert.assertEquals(vgl, dq.stream().collect(Collectors.toList()));
+        Assert.assertEquals(vgl, dq.parallelStream().collect(Collectors.toList()));
+        for (int step = 0; step < 2000; step++) {
+            int n = random.nextInt(1000);
+            switch (random.nextInt(8)) {
+                case 0:
+                    dq = dq.consL(n);
+                    vgl.addFirst(n);
+                    break;
+                case 1:
+                    dq = dq.consR(n);
+                    vgl.addLast(n);
+                    break;
+                case 2:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals(vgl.removeFirst(), dq.headL());
+                        dq = dq.tailL();
+                    }
+                    break;
+                case 3:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals(vgl.removeLast(), dq.headR());
+                        dq = dq.tailR();
+                    }
+                    break;
+                case 4:
+                    dq = dq.reversed();
+                    Collections.reverse(vgl);
+                    break;
+                case 5: {
+                    LinkedList<Integer> vgl2 = new LinkedList<>();
+                    PDQueue<Integer> dq2 = randomQueue(random, random.nextInt(100), vgl2);
+                    if (random.nextBoolean()) {
+                        dq2 = dq2.reversed();
+                        Collections.reverse(vgl2);
+                    }
+                    if (random.nextBoolean()) {
+                        dq = PDQueue.concat(dq, dq2);
+                        vgl.addAll(vgl2);
+                    } else {
+                        dq = PDQueue.concat(dq2, dq);
+                        vgl.addAll(0, vgl2);
+                    }
+                    break;
+                }
+                case 6: {
+                    int k = random.nextInt(vgl.size() + 1);
+                    dq = dq.insertAt(k, n);
+                    vgl.add(k, n);
+                    break;
+                }
+                default:
+                    if (!vgl.isEmpty()) {
+                        int k = random.nextInt(vgl.size());
+                        if (random.nextBoolean()) {
+                            dq = dq.removeAt(k);
+                            vgl.remove(k);
+                        } else {
+                            dq = dq.set(k, n);
+                            vgl.set(k, n);
+                        }
+                    }
+                    break;
+            }
+        }
+        assertQueue(vgl, dq);
+        int k = vgl.size() / 3;
+        PDQueue.Split<Integer> split = dq.splitAt(k);
+        Assert.assertEquals(vgl.subList(0, k), split.left().stream().collect(Collectors.toList()));
+        Assert.assertEquals(vgl.subList(k, vgl.size()), split.right().stream().collect(Collectors.toList()));
+        Assert.assertEquals(split.left(), dq.take(k));
+        Assert.assertEquals(split.right(), dq.drop(k));
+        PDQueue<Integer> q = PDQueue.of(1, 2, 3);
+        Assert.assertSame(q, q.reversed().reversed());
+        Assert.assertEquals(PDQueue.of(3, 2, 1, 1, 2, 3), PDQueue.concat(q.reversed(), q));
+        Assert.assertEquals(PDQueue.of(3, 2, 1, 3, 2, 1), PDQueue.concat(q.reversed(), q.reversed()));
+    }
+
+    @Test
+    public void testReversedConcat() {
+        Random random = new Random(37);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = randomQueue(random, 20000, vgl);
+        for (int step = 0; step < 40; step++) {
+            LinkedList<Integer> vgl2 = new LinkedList<>();
+            PDQueue<Integer> dq2 = randomQueue(random, random.nextInt(5000), vgl2);
+            dq = dq.reversed();
+            Collections.reverse(vgl);
+            if (random.nextBoolean()) {
+                dq = PDQueue.concat(dq, dq2);
+                vgl.addAll(vgl2);
+            } else {
+                dq = PDQueue.concat(dq2, dq);
+                vgl.addAll(0, vgl2);
+            }
+            // the concatenation opens the view, so the result is no view
+            Assert.assertTrue(dq.kind() >= 0);
+            for (int i = 0; i < 100; i++) {
+                int k = random.nextInt(vgl.size());
+                Assert.assertEquals(vgl.get(k), dq.get(k));
+            }
+        }
+        assertQueue(vgl, dq);
+        PDQueue<Integer> copy = PDQueue.fromIterable(vgl);
+        Assert.assertEquals(copy.hashCode(), dq.hashCode());
+        Assert.assertEquals(copy, dq);
+        Assert.assertEquals(dq, copy);
+        Assert.assertEquals(dq.consR(-1), copy.consR(-1));
+        Assert.assertNotEquals(dq.consR(-1), copy.consR(-2));
+        while (!vgl.isEmpty()) {
+            Assert.assertEquals(vgl.removeFirst(), dq.headL());
+            dq = dq.tailL();
+            if (!vgl.isEmpty()) {
+                Assert.assertEquals(vgl.removeLast(), dq.headR());
+                dq = dq.tailR();
+            }
+        }
+        Assert.assertTrue(dq.isEmpty());
+    }
+
+    @Test
+    public void testReversedChild() {
+        PDQueue<Integer> q = PDQueue.fromIterable(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+        PDQueue<Integer> r = q.reversed();
+        PDQueue.DQn<Integer> dq = (PDQueue.DQn<Integer>) q;
+        PDQueue<?> left = (PDQueue<?>) r.child(0);
+        PDQueue<?> right = (PDQueue<?>) r.child(2);
+        Assert.assertEquals(dq.right.reversed(), left);
+        Assert.assertEquals(dq.middle.size(), ((PDQueue<?>) r.child(1)).size());
+        Assert.assertEquals(dq.left.reversed(), right);
+        Assert.assertEquals(dq.middle.headL().reversed(), ((PDQueue<?>) r.child(1)).headR());
+        Assert.assertSame(r.child(1), r.child(1));
+        Assert.assertEquals(PDQueue.concat(q.reversed(), q), PDQueue.concat(PDQueue.fromIterable(r), q));
+    }
+
+    @Test
+    public void testBulk() {
+        Random random = new Random(43);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        PDQueue<Integer> dq = PDQueue.empty();
+        for (int step = 0; step < 300; step++) {
+            List<Integer> batch = new ArrayList<>();
+            for (int k = random.nextInt(200); k > 0; k--) {
+                batch.add(random.nextInt());
+            }
+            switch (random.nextInt(6)) {
+                case 0:
+                    dq = dq.consAllL(batch);
+                    vgl.addAll(0, batch);
+                    break;
+                case 1:
+                    dq = dq.consAllL(batch.toArray(new Integer[0]));
+                    vgl.addAll(0, batch);
+                    break;
+                case 2:
+                    dq = dq.consAllR(batch);
+                    vgl.addAll(batch);
+                    break;
+                case 3:
+                    dq = dq.consAllR(batch.toArray(new Integer[0]));
+                    vgl.addAll(batch);
+                    break;
+                case 4: {
+                    int k = random.nextInt(vgl.size() / 2 + 1);
+                    dq = dq.dropL(k);
+                    vgl.subList(0, k).clear();
+                    break;
+                }
+                default: {
+                    int k = random.nextInt(vgl.size() / 2 + 1);
+                    dq = dq.dropR(k);
+                    vgl.subList(vgl.size() - k, vgl.size()).clear();
+                    break;
+                }
+            }
+        }
+        assertQueue(vgl, dq);
+        Assert.assertTrue(dq.dropR(dq.size()).isEmpty());
+        Assert.assertSame(dq, dq.dropL(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testDropROutOfBounds() {
+        PDQueue.of(1, 2, 3).dropR(4);
+    }
+
+    @Test
+    public void testViews() {
+        List<Integer> vgl = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            vgl.add(i * 7);
+        }
+        PDQueue<Integer> dq = PDQueue.fromIterable(vgl);
+        List<Integer> list = dq.asList();
+        Assert.assertEquals(vgl, list);
+        Assert.assertEquals(vgl.hashCode(), list.hashCode());
+        Assert.assertEquals(vgl.indexOf(700), list.indexOf(700));
+        List<Integer> sub = list.subList(100, 900).subList(50, 600);
+        Assert.assertEquals(vgl.subList(150, 700), sub);
+        Assert.assertEquals(vgl.subList(150, 700), sub.stream().collect(Collectors.toList()));
+        Assert.assertEquals(vgl.subList(150, 700), new ArrayList<>(sub));
+
+        Deque<Integer> deque = dq.reversed().asDeque();
+        Assert.assertEquals(1000, deque.size());
+        Assert.assertEquals(6993, (int) deque.getFirst());
+        Assert.assertEquals(0, (int) deque.peekLast());
+        Assert.assertTrue(deque.contains(700));
+        Assert.assertEquals(vgl, new ArrayList<>(PDQueue.fromIterable(deque).reversed().asList()));
+        Assert.assertNull(PDQueue.<Integer>empty().asDeque().peekFirst());
+    }
+
+    @Test
+    public void testRanges() {
+        Random random = new Random(11);
+        LinkedList<Integer> vgl1 = new LinkedList<>();
+        LinkedList<Integer> vgl2 = new LinkedList<>();
+        PDQueue<Integer> dq = PDQueue.concat(randomQueue(random, 3000, vgl1), randomQueue(random, 2000, vgl2));
+        List<Integer> vgl = new ArrayList<>(vgl1);
+        vgl.addAll(vgl2);
+        for (int step = 0; step < 200; step++) {
+            int from = random.nextInt(vgl.size() + 1);
+            int to = from + random.nextInt(vgl.size() - from + 1);
+            List<Integer> expected = vgl.subList(from, to);
+            List<Integer> visited = new ArrayList<>();
+            dq.forEachInRange(from, to, visited::add);
+            Assert.assertEquals(expected, visited);
+            visited.clear();
+            dq.forEachInRangeRtoL(from, to, visited::add);
+            Collections.reverse(visited);
+            Assert.assertEquals(expected, visited);
+            Assert.assertEquals(expected,
+                    StreamSupport.stream(dq.spliterator(from, to), true).collect(Collectors.toList()));
+            int n = vgl.size();
+            visited.clear();
+            dq.reversed().forEachInRange(n - to, n - from, visited::add);
+            Collections.reverse(visited);
+            Assert.assertEquals(expected, visited);
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRangeOutOfBounds() {
+        PDQueue.of(1, 2, 3).forEachInRange(2, 4, e -> { });
+    }
+
+    @Test
+    public void testTransformations() {
+        Random random = new Random(19);
+        LinkedList<Integer> vgl1 = new LinkedList<>();
+        LinkedList<Integer> vgl2 = new LinkedList<>();
+        PDQueue<Integer> dq = PDQueue.concat(randomQueue(random, 30000, vgl1), randomQueue(random, 20000, vgl2));
+        List<Integer> vgl = new ArrayList<>(vgl1);
+        vgl.addAll(vgl2);
+
+        List<String> mapped = vgl.stream().map(i -> "#" + i).collect(Collectors.toList());
+        PDQueue<String> m = dq.map(i -> "#" + i);
+        Assert.assertEquals(mapped, m.asList());
+        assertSameShape(dq, m);
+        PDQueue<String> pm = dq.parallelMap(i -> "#" + i);
+        Assert.assertEquals(mapped, pm.asList());
+        assertSameShape(dq, pm);
+        Collections.reverse(mapped);
+        Assert.assertEquals(mapped, dq.reversed().map(i -> "#" + i).asList());
+
+        List<Integer> even = vgl.stream().filter(i -> i % 2 == 0).collect(Collectors.toList());
+        Assert.assertEquals(even, dq.filter(i -> i % 2 == 0).asList());
+        Assert.assertEquals(even, dq.parallelFilter(i -> i % 2 == 0).asList());
+
+        List<Integer> twice = vgl.stream().flatMap(i -> Arrays.asList(i, -i).stream()).collect(Collectors.toList());
+        Assert.assertEquals(twice, dq.flatMap(i -> Arrays.asList(i, -i)).asList());
+        Assert.assertEquals(twice, dq.parallelFlatMap(i -> PDQueue.of(i, -i)).asList());
+
+        long sum = vgl.stream().mapToLong(i -> i).sum();
+        Assert.assertEquals(sum, (long) dq.foldLeft(0L, (a, i) -> a + i));
+        Assert.assertEquals((int) sum, (int) dq.reduce(0, Integer::sum));
+        Assert.assertEquals((int) sum, (int) dq.parallelReduce(0, Integer::sum));
+        Assert.assertEquals("123", PDQueue.of(1, 2, 3).foldLeft("", (s, i) -> s + i));
+        Assert.assertEquals("321", PDQueue.of(1, 2, 3).foldRight("", (i, s) -> s + i));
+        Assert.assertTrue(PDQueue.<Integer>empty().map(i -> i + 1).isEmpty());
+    }
+
+    @Test
+    public void testConcatAll() {
+        Random random = new Random(37);
+        List<PDQueue<Integer>> queues = new ArrayList<>();
+        LinkedList<Integer> vgl = new LinkedList<>();
+        for (int i = 0; i < 2000; i++) {
+            LinkedList<Integer> part = new LinkedList<>();
+            int size = random.nextInt(10) == 0 ? random.nextInt(500) : random.nextInt(8);
+            PDQueue<Integer> q = randomQueue(random, size, part);
+            if (random.nextInt(5) == 0) {
+                q = q.reversed();
+                Collections.reverse(part);
+            }
+            queues.add(q);
+            vgl.addAll(part);
+        }
+        PDQueue<Integer> all = PDQueue.concatAll(queues);
+        assertQueue(vgl, all);
+        Assert.assertEquals(all, PDQueue.flatten(PDQueue.fromIterable(queues)));
+        Assert.assertEquals(PDQueue.of(1, 2, 3), PDQueue.concatAll(PDQueue.of(1), PDQueue.empty(), PDQueue.of(2, 3)));
+        Assert.assertTrue(PDQueue.concatAll(new ArrayList<PDQueue<Integer>>()).isEmpty());
+    }
+
+    private void assertSameShape(PDQueue<?> a, PDQueue<?> b) {
+        Assert.assertEquals(a.kind(), b.kind());
+        Assert.assertEquals(a.size(), b.size());
+        if (a.kind() == 5) {
+            PDQueue.DQn<?> dqa = (PDQueue.DQn<?>) a;
+            PDQueue.DQn<?> dqb = (PDQueue.DQn<?>) b;
+            assertSameShape(dqa.left, dqb.left);
+            assertSameShape(dqa.middle, dqb.middle);
+            assertSameShape(dqa.right, dqb.right);
+        } else {
+            for (int i = 0; i < a.kind(); i++) {
+                if (a.child(i) instanceof PDQueue) {
+                    assertSameShape((PDQueue<?>) a.child(i), (PDQueue<?>) b.child(i));
+                }
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListViewReadOnly() {
+        PDQueue.of(1, 2, 3).asList().set(0, 4);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDequeViewReadOnly() {
+        PDQueue.of(1, 2, 3).asDeque().pollFirst();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSetOutOfBounds() {
+        PDQueue.of(1, 2, 3).set(3, 4);
+    }
+
     @Test
     public void testToArray() {
         PDQueue<Integer> q = PDQueue.<Integer>empty();
@@ -0,0 +1,80 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test cases for PDRope
+ */
+public class PDRopeTest {
+
+    private static String randomText(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testRandomEdits() {
+        Random random = new Random(23);
+        StringBuilder vgl = new StringBuilder(randomText(random, 5000));
+        PDRope rope = PDRope.of(vgl);
+        for (int step = 0; step < 500; step++) {
+            int from = random.nextInt(vgl.length() + 1);
+            int to = from + random.nextInt(Math.min(vgl.length() - from, 700) + 1);
+            switch (random.nextInt(4)) {
+                case 0: {
+                    String s = randomText(random, random.nextInt(1200));
+                    rope = rope.insert(from, s);
+                    vgl.insert(from, s);
+                    break;
+                }
+                case 1:
+                    rope = rope.delete(from, to);
+                    vgl.delete(from, to);
+                    break;
+                case 2:
+                    Assert.assertEquals(vgl.substring(from, to), rope.subSequence(from, to).toString());
+                    break;
+                default: {
+                    String s = randomText(random, random.nextInt(100));
+                    rope = rope.append(s);
+                    vgl.append(s);
+                    break;
+                }
+            }
+            Assert.assertEquals(vgl.length(), rope.length());
+            if (vgl.length() > 0) {
+                int n = random.nextInt(vgl.length());
+                Assert.assertEquals(vgl.charAt(n), rope.charAt(n));
+            }
+        }
+        Assert.assertEquals(vgl.toString(), rope.toString());
+        PDRope flat = PDRope.of(vgl.toString());
+        Assert.assertEquals(flat, rope);
+        Assert.assertEquals(flat.hashCode(), rope.hashCode());
+        Assert.assertNotEquals(flat, rope.insert(7, "x"));
+    }
+
+    @Test
+    public void testConcat() {
+        PDRope hello = PDRope.of("hello, ");
+        PDRope world = PDRope.of("world");
+        PDRope r = PDRope.concat(hello, world);
+        Assert.assertEquals("hello, world", r.toString());
+        Assert.assertEquals("lo, wo", r.subSequence(3, 9).toString());
+        Assert.assertEquals("hello", r.delete(5, 12).toString());
+        Assert.assertSame(hello, PDRope.concat(hello, PDRope.empty()));
+        Assert.assertEquals(PDQueue.of('a', 'b', 'c').hashCode(), PDRope.of("abc").hashCode());
+        Assert.assertTrue(PDRope.empty().isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharAtOutOfBounds() {
+        PDRope.of("abc").charAt(3);
+    }
+}
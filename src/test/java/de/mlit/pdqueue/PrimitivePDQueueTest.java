@@ -0,0 +1,181 @@
+package de.mlit.pdqueue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Test cases for IntPDQueue, LongPDQueue and DoublePDQueue
+ */
+public class PrimitivePDQueueTest {
+
+    protected void assertQueue(LinkedList<Integer> vgl, IntPDQueue q) {
+        Assert.assertEquals(vgl.size(), q.size());
+        int i = 0;
+        for (int n : vgl) {
+            Assert.assertEquals(n, q.getInt(i++));
+        }
+        int[] array = q.toArray();
+        i = 0;
+        for (int n : vgl) {
+            Assert.assertEquals(n, array[i++]);
+        }
+        List<Integer> reverse = new ArrayList<>();
+        q.forEachRtoL(reverse::add);
+        Collections.reverse(reverse);
+        Assert.assertEquals(vgl, reverse);
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(11);
+        LinkedList<Integer> vgl = new LinkedList<>();
+        IntPDQueue q = IntPDQueue.empty();
+        LinkedList<Integer> vgl2 = new LinkedList<>();
+        IntPDQueue q2 = IntPDQueue.empty();
+        for (int step = 0; step < 3000; step++) {
+            int n = random.nextInt(1000);
+            switch (random.nextInt(7)) {
+                case 0:
+                case 1:
+                    vgl.addFirst(n);
+                    q = q.consL(n);
+                    break;
+                case 2:
+                case 3:
+                    vgl.addLast(n);
+                    q = q.consR(n);
+                    break;
+                case 4:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals((int) vgl.pollFirst(), q.headLInt());
+                        q = q.tailL();
+                    }
+                    break;
+                case 5:
+                    if (!vgl.isEmpty()) {
+                        Assert.assertEquals((int) vgl.pollLast(), q.headRInt());
+                        q = q.tailR();
+                    }
+                    break;
+                case 6:
+                    if (random.nextBoolean()) {
+                        q = IntPDQueue.concat(q, q2);
+                        vgl.addAll(vgl2);
+                    } else {
+                        q = IntPDQueue.concat(q2, q);
+                        vgl.addAll(0, vgl2);
+                    }
+                    q2 = IntPDQueue.empty();
+                    vgl2 = new LinkedList<>();
+                    for (int k = random.nextInt(50); k > 0; k--) {
+                        q2 = q2.consR(k);
+                        vgl2.addLast(k);
+                    }
+                    break;
+            }
+            if (step % 100 == 0) {
+                assertQueue(vgl, q);
+            }
+        }
+        assertQueue(vgl, q);
+        while (!vgl.isEmpty()) {
+            Assert.assertEquals((int) vgl.pollFirst(), q.headLInt());
+            q = q.tailL();
+        }
+        Assert.assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testStream() {
+        IntPDQueue q = IntPDQueue.empty();
+        for (int i = 0; i < 100000; i++) {
+            q = q.consR(i);
+        }
+        Assert.assertEquals(99999L * 100000L / 2, q.parallelStream().asLongStream().sum());
+        Assert.assertArrayEquals(q.toArray(), q.parallelStream().toArray());
+        Spliterator.OfInt s1 = q.spliterator();
+        Spliterator.OfInt s0 = s1.trySplit();
+        Assert.assertEquals(q.size(), s0.estimateSize() + s1.estimateSize());
+        int[] next = new int[1];
+        s0.forEachRemaining((int i) -> Assert.assertEquals(next[0]++, i));
+        s1.forEachRemaining((int i) -> Assert.assertEquals(next[0]++, i));
+        Assert.assertEquals(q.size(), next[0]);
+    }
+
+    @Test
+    public void testEquals() {
+        IntPDQueue q1 = IntPDQueue.of(1, 2, 3, 4, 5, 6);
+        IntPDQueue q2 = IntPDQueue.empty().consL(6).consL(5).consL(4).consL(3).consL(2).consL(1);
+        Assert.assertEquals(q1, q2);
+        Assert.assertEquals(q1.hashCode(), q2.hashCode());
+        Assert.assertNotEquals(q1, q2.replaceR(7));
+        Assert.assertEquals(PDQueue.<Integer>empty().consR(1).consR(2).consR(3).consR(4).consR(5).consR(6).hashCode(),
+                q1.hashCode());
+    }
+
+    @Test
+    public void testFromArray() {
+        for (int n = 0; n < 200; n++) {
+            int[] values = new int[n + 2];
+            IntPDQueue vgl = IntPDQueue.empty();
+            for (int i = 0; i < n; i++) {
+                values[i + 1] = i * 7;
+                vgl = vgl.consR(i * 7);
+            }
+            IntPDQueue q = IntPDQueue.fromArray(values, 1, n + 1);
+            Assert.assertEquals(vgl, q);
+            Assert.assertEquals(vgl.hashCode(), q.hashCode());
+            Assert.assertArrayEquals(vgl.toArray(), q.toArray());
+            for (int i = 0; i < n; i++) {
+                Assert.assertEquals(i * 7, q.getInt(i));
+            }
+            if (n > 0) {
+                Assert.assertEquals(vgl.tailL().consR(-1), q.tailL().consR(-1));
+            }
+        }
+        long[] longs = {1L << 40, 2, 3, 4, 5, 6, 7};
+        Assert.assertEquals(LongPDQueue.empty().consR(1L << 40).consR(2).consR(3).consR(4).consR(5).consR(6).consR(7),
+                LongPDQueue.of(longs));
+        Assert.assertEquals(7, DoublePDQueue.of(1, 2, 3, 4, 5, 6, 7).size());
+    }
+
+    @Test
+    public void testDerivedHashCode() {
+        IntPDQueue q = IntPDQueue.empty();
+        PDQueue<Integer> vgl = PDQueue.empty();
+        for (int i = 0; i < 1000; i++) {
+            q = q.consR(i);
+            vgl = vgl.consR(i);
+        }
+        Assert.assertEquals(vgl.hashCode(), q.hashCode());
+        // derived queues share the hashes cached in the nodes of q
+        IntPDQueue q2 = q.consL(-1).tailR();
+        Assert.assertEquals(vgl.consL(-1).tailR().hashCode(), q2.hashCode());
+        Assert.assertNotEquals(q, q2);
+        Assert.assertEquals(LongPDQueue.of(1L << 40, -1).hashCode(),
+                PDQueue.of(1L << 40, -1L).hashCode());
+        Assert.assertEquals(DoublePDQueue.of(0.5, -0.0, Double.NaN).hashCode(),
+                PDQueue.of(0.5, -0.0, Double.NaN).hashCode());
+    }
+
+    @Test
+    public void testLongAndDouble() {
+        LongPDQueue lq = LongPDQueue.empty();
+        DoublePDQueue dq = DoublePDQueue.empty();
+        for (int i = 0; i < 10000; i++) {
+            lq = lq.consR(i * 1000000000L);
+            dq = dq.consL(i / 2.0);
+        }
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertEquals(i * 1000000000L, lq.getLong(i));
+            Assert.assertEquals((9999 - i) / 2.0, dq.getDouble(i), 0.0);
+        }
+        Assert.assertEquals(9999L * 1000000000L, lq.headRLong());
+        Assert.assertEquals(0.0, dq.headRDouble(), 0.0);
+        Assert.assertEquals(lq.stream().sum(), lq.parallelStream().sum());
+        Assert.assertEquals(dq.stream().sum(), dq.parallelStream().sum(), 1e-6);
+        Assert.assertEquals(DoublePDQueue.of(Double.NaN), DoublePDQueue.of(Double.NaN));
+    }
+}